@@ -1,6 +1,7 @@
 package com.icss.etc.ticket.config;
 
 import com.icss.etc.ticket.service.TicketService;
+import com.icss.etc.ticket.service.impl.TicketStatsRollup;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -38,17 +39,34 @@ public class StaticScheduleTask  {
     private TicketService ticketService;
 
     /**
-     * 每5分钟自动分配一次待处理的工单
+     * 分配对账: 新建/转交的工单由分配队列即时分配,
+     * 这里只兜底处理队列满、分配失败或当时没有在线处理人的工单, 默认每30分钟执行一次
      */
     @Async
-    @Scheduled(fixedRate = 300000) // 5分钟执行一次
+    @Scheduled(fixedDelayString = "${ticket.assign.reconcileInterval:1800000}")
     public void autoAssignTickets() {
         try {
-            log.info("开始自动分配工单...");
+            log.info("开始分配对账...");
             ticketService.autoAssignPendingTickets();
-            log.info("自动分配工单完成");
+            log.info("分配对账完成");
         } catch (Exception e) {
-            log.error("自动分配工单失败:", e);
+            log.error("分配对账失败:", e);
+        }
+    }
+
+    @Autowired
+    private TicketStatsRollup ticketStatsRollup;
+
+    /**
+     * 统计对账: 汇总表随工单变更实时增减, 每晚按工单表修正一次偏差, 默认凌晨2:30执行
+     */
+    @Async
+    @Scheduled(cron = "${ticket.stats.reconcileCron:0 30 2 * * ?}")
+    public void reconcileTicketStats() {
+        try {
+            ticketStatsRollup.reconcile();
+        } catch (Exception e) {
+            log.error("工单统计对账失败:", e);
         }
     }
 }
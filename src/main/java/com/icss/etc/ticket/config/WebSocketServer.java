@@ -3,6 +3,8 @@ package com.icss.etc.ticket.config;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
 import java.util.Map;
@@ -19,6 +21,23 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class WebSocketServer implements WebSocketHandler {
 
+    /** 单条消息最长发送时间(毫秒), 超过时关闭连接 */
+    private static final int SEND_TIME_LIMIT = 10 * 1000;
+    /** 发送中排队的消息最大字节数, 超过时关闭连接 */
+    private static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    /**
+     * 发送结果
+     */
+    public enum SendResult {
+        /** 已发送 */
+        SENT,
+        /** 用户不在线 */
+        OFFLINE,
+        /** 发送失败, 连接已关闭, 用户重连后可重试 */
+        FAILED
+    }
+
     /**
      * 存放WebSocketSession的Map
      */
@@ -27,7 +46,8 @@ public class WebSocketServer implements WebSocketHandler {
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         Long userId = getUserId(session);
-        USER_SESSIONS.put(userId, session);
+        // 通知推送与后台任务进度可能从不同线程同时发送, 由装饰器串行写出
+        USER_SESSIONS.put(userId, new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, BUFFER_SIZE_LIMIT));
         log.info("WebSocket连接建立, userId: {}", userId);
     }
 
@@ -60,26 +80,30 @@ public class WebSocketServer implements WebSocketHandler {
 
     /**
      * 发送消息给指定用户
+     * @return 发送结果
      */
-    public void sendToUser(Long userId, String message) {
+    public SendResult sendToUser(Long userId, String message) {
         WebSocketSession session = USER_SESSIONS.get(userId);
         if (session != null && session.isOpen()) {
             try {
                 session.sendMessage(new TextMessage(message));
                 log.debug("发送WebSocket消息成功, userId: {}, message: {}", userId, message);
-            } catch (IOException e) {
+                return SendResult.SENT;
+            } catch (IOException | SessionLimitExceededException e) {
                 log.error("发送WebSocket消息失败, userId: {}", userId, e);
                 try {
                     session.close();
                 } catch (IOException ex) {
                     log.error("关闭WebSocket session失败", ex);
                 }
-                USER_SESSIONS.remove(userId);
+                // 只移除失败的连接, 用户可能已经重连
+                USER_SESSIONS.remove(userId, session);
+                return SendResult.FAILED;
             }
-        } else {
-            log.warn("用户WebSocket session不存在或已关闭, userId: {}", userId);
-            USER_SESSIONS.remove(userId);
         }
+        log.warn("用户WebSocket session不存在或已关闭, userId: {}", userId);
+        USER_SESSIONS.remove(userId);
+        return SendResult.OFFLINE;
     }
 
     /**
@@ -90,7 +114,7 @@ public class WebSocketServer implements WebSocketHandler {
             if (session.isOpen()) {
                 try {
                     session.sendMessage(new TextMessage(message));
-                } catch (IOException e) {
+                } catch (IOException | SessionLimitExceededException e) {
                     log.error("发送WebSocket消息失败, userId: {}", userId, e);
                 }
             }
@@ -181,9 +181,10 @@ public class DepartmentController {
 
 
     @GetMapping("/stats")
-    public R getDepartmentStats(@RequestParam Long departmentId) {
+    public R getDepartmentStats(@RequestParam Long departmentId,
+                                @RequestParam(defaultValue = "false") boolean includeSubDepartments) {
         try {
-            DepartmentStatsVO stats = departmentService.getDepartmentStats(departmentId);
+            DepartmentStatsVO stats = departmentService.getDepartmentStats(departmentId, includeSubDepartments);
             return R.OK(stats);
         } catch (BusinessException e) {
             log.error("获取部门统计失败: {}", e.getMessage());
@@ -6,20 +6,16 @@ import com.icss.etc.ticket.enums.CodeEnum;
 import com.icss.etc.ticket.exceptions.BusinessException;
 import com.icss.etc.ticket.mapper.AttachmentMapper;
 import com.icss.etc.ticket.service.FileService;
-import com.icss.etc.ticket.util.PropertiesUtil;
-import jakarta.servlet.http.HttpServletResponse;
+import com.icss.etc.ticket.service.impl.AttachmentResourceResolver;
+import com.icss.etc.ticket.util.SecurityUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -41,7 +37,7 @@ public class FileController {
     private AttachmentMapper attachmentMapper;
 
     @Autowired
-    private PropertiesUtil propertiesUtil;
+    private AttachmentResourceResolver attachmentResourceResolver;
 
     @GetMapping("/check/{ticketId}/{filePath}")
     public R<Boolean> checkFile(@PathVariable Long ticketId, @PathVariable String filePath) {
@@ -63,36 +59,26 @@ public class FileController {
                 log.error("附件不存在: {}", filePath);
                 return R.FAIL(CodeEnum.NOT_FOUND);
             }
-            String uploadPath = propertiesUtil.getProperty("upload.path");
-            log.info("当前配置的上传路径: {}", uploadPath);
-
-            if (uploadPath == null) {
-                throw new BusinessException(CodeEnum.INTERNAL_ERROR,"上传路径未配置");
-            }
-            if (!uploadPath.endsWith("\\")) {
-                uploadPath += "\\";
-            }
-
             // 验证物理文件
-            File file = new File(uploadPath + filePath);
-
-            log.info("完整文件路径: {}", file.getAbsolutePath());
-
-            if (!file.exists()) {
-                log.error("文件不存在: {}", file.getAbsoluteFile());
+            Path file = attachmentResourceResolver.resolve(filePath);
+            if (file == null) {
+                log.error("文件不存在: {}", filePath);
                 throw new BusinessException(CodeEnum.NOT_FOUND,"文件不存在");
             }
-            return R.OK(file.exists());
+            log.info("完整文件路径: {}", file);
+            return R.OK(true);
         } catch (Exception e) {
             log.error("检查文件是否存在失败: {}", filePath, e);
             return R.FAIL(CodeEnum.INTERNAL_ERROR);
         }
     }
 
+    /**
+     * 下载附件, 支持 Range 断点续传与 If-None-Match 缓存校验
+     */
     @GetMapping("/download/{ticketId}/{filePath}")
-    public R downloadFile(@PathVariable Long ticketId,
-                             @PathVariable String filePath,
-                             HttpServletResponse response) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable Long ticketId,
+                                                 @PathVariable String filePath) {
         try {
             // 验证附件记录
             Attachment attachment = attachmentMapper.selectByAll(
@@ -105,42 +91,19 @@ public class FileController {
 
             if (attachment == null) {
                 log.error("附件不存在: {}", filePath);
-                return R.FAIL(CodeEnum.NOT_FOUND);
+                return ResponseEntity.notFound().build();
             }
 
-            String property = propertiesUtil.getProperty("upload.path");
-            if (property == null) {
-                throw new BusinessException(CodeEnum.INTERNAL_ERROR,"上传路径未配置");
-            }
-            if (!property.endsWith("\\")) {
-                property += "\\";
-            }
-
-            File file = new File(property + filePath);
-            if (!file.exists()) {
-                log.error("文件不存在: {}", file.getAbsoluteFile());
-                return R.FAIL(CodeEnum.NOT_FOUND);
-            }
-
-            // 设置响应头
-            response.setContentType(Files.probeContentType(file.toPath()));
-            response.setHeader("Content-Disposition", "attachment; filename=" +
-                    URLEncoder.encode(filePath, StandardCharsets.UTF_8));
-
-            try (InputStream in = new FileInputStream(file);
-                 OutputStream out = response.getOutputStream()) {
-                byte[] buffer = new byte[4096];
-                int length;
-                while ((length = in.read(buffer)) > 0) {
-                    out.write(buffer, 0, length);
-                }
-                out.flush();
+            Path file = attachmentResourceResolver.resolve(filePath);
+            if (file == null) {
+                log.error("文件不存在: {}", filePath);
+                return ResponseEntity.notFound().build();
             }
+            return attachmentResourceResolver.serve(file, filePath, false);
         } catch (Exception e) {
             log.error("文件下载失败: {}", filePath, e);
-            R.FAIL(CodeEnum.INTERNAL_ERROR);
+            return ResponseEntity.internalServerError().build();
         }
-        return R.OK();
     }
 
     /**
@@ -168,7 +131,10 @@ public class FileController {
     public R<List<String>> uploadFiles(@PathVariable Long ticketId,
                                        @RequestParam("files") MultipartFile[] files) {
         try {
-            List<String> fileUrls = fileService.uploadFiles(files, ticketId);
+            List<String> fileUrls = fileService.uploadAttachments(files, ticketId, SecurityUtils.getCurrentUserId())
+                    .stream()
+                    .map(attachment -> "/api/files/" + attachment.getFilePath())
+                    .toList();
             return R.OK(fileUrls);
         } catch (Exception e) {
             log.error("文件上传失败, ticketId: {}", ticketId, e);
@@ -179,18 +145,9 @@ public class FileController {
     @DeleteMapping("/{attachmentId}")
     public R<Void> deleteAttachment(@PathVariable Long attachmentId) {
         try {
-            Attachment attachment = attachmentMapper.selectByPrimaryKey(attachmentId);
-            if (attachment == null) {
+            if (!fileService.deleteAttachment(attachmentId)) {
                 return R.FAIL(CodeEnum.NOT_FOUND);
             }
-
-            // 删除物理文件
-            fileService.deleteFile(attachment.getFilePath());
-
-            // 更新数据库状态
-            attachment.setIsDeleted(1);
-            attachmentMapper.updateByPrimaryKey(attachment);
-
             return R.OK();
         } catch (Exception e) {
             log.error("删除附件失败, attachmentId: {}", attachmentId, e);
@@ -2,20 +2,24 @@ package com.icss.etc.ticket.controller;
 
 import com.icss.etc.ticket.enums.CodeEnum;
 import com.icss.etc.ticket.exceptions.BusinessException;
-import com.icss.etc.ticket.util.PropertiesUtil;
-import jakarta.annotation.PostConstruct;
-import jakarta.servlet.http.HttpServletResponse;
+import com.icss.etc.ticket.service.impl.AttachmentResourceResolver;
+import com.icss.etc.ticket.service.impl.ThumbnailCache;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.compress.utils.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.*;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@code FilePreviewController}
@@ -29,53 +33,50 @@ import java.nio.file.Files;
 @RequestMapping("/files")
 public class FilePreviewController {
     @Autowired
-    private PropertiesUtil propertiesUtil;
-    private String uploadPath;
-    @PostConstruct
-    public void init() {
-        this.uploadPath = propertiesUtil.getProperty("upload.path", "./uploads/");
-        if (!uploadPath.endsWith("/"))
-            uploadPath += "/";
-        log.info("FilePreviewController initialized with upload path: {}", uploadPath);
-    }
+    private AttachmentResourceResolver attachmentResourceResolver;
+
+    @Autowired
+    private ThumbnailCache thumbnailCache;
 
+    /**
+     * 预览附件: 图片和PDF在浏览器中打开, 其他类型下载;
+     * 支持 Range, 大PDF翻页时只请求需要的部分
+     * @param variant 图片缩略图尺寸(长边像素, 128 或 512), 不传时返回原文件
+     */
     @GetMapping("/preview/{fileName}")
-    public void
-    previewFile(@PathVariable String fileName, HttpServletResponse response) {
-        File file = new File(uploadPath  + fileName);
-        if (!file.exists()) {
+    public ResponseEntity<Resource> previewFile(@PathVariable String fileName,
+                                                @RequestParam(required = false) Integer variant) {
+        Path file = attachmentResourceResolver.resolve(fileName);
+        if (file == null) {
             throw new BusinessException(CodeEnum.NOT_FOUND);
         }
+        if (variant != null && !ThumbnailCache.SIZES.contains(variant)) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "不支持的预览尺寸");
+        }
 
         try {
-            String contentType = Files.probeContentType(file.toPath());
-            response.setContentType(contentType);
-
-            // 如果是图片，直接输出
-            if (contentType.startsWith("image/")) {
-                try (InputStream in = new FileInputStream(file);
-                     OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
-                }
-            }
-            // 如果是PDF，直接预览
-            else if (contentType.equals("application/pdf")) {
-                response.setHeader("Content-Disposition", "inline; filename=" + fileName);
-                try (InputStream in = new FileInputStream(file);
-                     OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
-                }
-            }
-            // 其他类型，提供下载
-            else {
-                response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
-                try (InputStream in = new FileInputStream(file);
-                     OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
+            MediaType contentType = attachmentResourceResolver.contentType(file, fileName);
+            boolean image = "image".equals(contentType.getType());
+            if (image && variant != null) {
+                Path thumbnail = thumbnailCache.get(file, fileName, variant);
+                if (thumbnail != null) {
+                    // 按内容保存的文件, 缩略图可长期缓存; 附件需登录访问, 只允许浏览器缓存, 不允许共享缓存
+                    CacheControl cacheControl = thumbnailCache.isImmutable(fileName)
+                            ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                            : CacheControl.noCache();
+                    try {
+                        return attachmentResourceResolver.serve(thumbnail, thumbnail.getFileName().toString(), true,
+                                cacheControl);
+                    } catch (NoSuchFileException e) {
+                        // 缩略图已被淘汰, 返回原图
+                        log.debug("缩略图已淘汰, 返回原图: {}", thumbnail);
+                    }
                 }
             }
+            boolean inline = image || MediaType.APPLICATION_PDF.equalsTypeAndSubtype(contentType);
+            return attachmentResourceResolver.serve(file, fileName, inline);
         } catch (IOException e) {
             throw new BusinessException(CodeEnum.INTERNAL_ERROR);
         }
     }
-}
+}
\ No newline at end of file
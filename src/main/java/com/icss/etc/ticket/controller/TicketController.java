@@ -16,6 +16,7 @@ import com.icss.etc.ticket.enums.TicketStatus;
 import com.icss.etc.ticket.exceptions.BusinessException;
 import com.icss.etc.ticket.mapper.AttachmentMapper;
 import com.icss.etc.ticket.service.FileService;
+import com.icss.etc.ticket.service.TicketImportService;
 import com.icss.etc.ticket.service.TicketService;
 import com.icss.etc.ticket.util.ExcelUtil;
 import com.icss.etc.ticket.util.PropertiesUtil;
@@ -27,8 +28,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -44,6 +43,8 @@ public class TicketController {
 
     private final TicketService ticketService;
 
+    private final TicketImportService ticketImportService;
+
     private final FileService fileService;
 
     private final PropertiesUtil propertiesUtil;
@@ -53,10 +54,12 @@ public class TicketController {
     private final String FILE_PATH;
 
 
-    public TicketController(TicketService ticketService , FileService fileService
+    public TicketController(TicketService ticketService , TicketImportService ticketImportService
+            , FileService fileService
            , PropertiesUtil propertiesUtil
             , AttachmentMapper attachmentMapper) {
         this.ticketService = ticketService;
+        this.ticketImportService = ticketImportService;
         this.fileService = fileService;
         this.propertiesUtil = propertiesUtil;
         this.attachmentMapper = attachmentMapper;
@@ -67,12 +70,19 @@ public class TicketController {
     /* My-Ticket.HTML 相关代码 */
     /**
      * 获取工单列表
+     * 传入cursor参数时使用游标分页(空串取首页), 返回下一页游标而不统计总数
      */
     @GetMapping("/list")
-    public R<PageInfo<Ticket>> getTicketList(TicketQueryDTO queryDTO) {
+    public R<?> getTicketList(TicketQueryDTO queryDTO) {
         try {
+            if (queryDTO.getCursor() != null) {
+                return R.OK(ticketService.getTicketListByCursor(queryDTO));
+            }
             PageInfo<Ticket> pageInfo = ticketService.getTicketList(queryDTO);
             return R.OK(pageInfo);
+        } catch (BusinessException e) {
+            log.error("查询工单列表失败: {}", e.getMessage());
+            return R.builder().msg(e.getMessage()).code(e.getCode()).build();
         } catch (Exception e) {
             log.error("查询工单列表失败:", e);
             return R.FAIL();
@@ -253,12 +263,19 @@ public class TicketController {
 
     /**
      * 获取我的待办工单
+     * 传入cursor参数时使用游标分页(空串取首页)
      */
     @GetMapping("/todos")
-    public R<PageInfo<Ticket>> getTodoTickets(TicketQueryDTO queryDTO) {
+    public R<?> getTodoTickets(TicketQueryDTO queryDTO) {
         try {
+            if (queryDTO.getCursor() != null) {
+                return R.OK(ticketService.getTodoTicketsByCursor(queryDTO));
+            }
             PageInfo<Ticket> pageInfo = ticketService.getTodoTickets(queryDTO);
             return R.OK(pageInfo);
+        } catch (BusinessException e) {
+            log.error("查询待办工单失败: {}", e.getMessage());
+            return R.builder().msg(e.getMessage()).code(e.getCode()).build();
         } catch (Exception e) {
             log.error("查询待办工单失败:", e);
             return R.FAIL();
@@ -347,8 +364,11 @@ public class TicketController {
     public R uploadAttachments(@PathVariable Long ticketId,
                                              @RequestParam("files") MultipartFile[] files) {
         try {
-            // 1. 上传文件
-            List<String> fileUrls = fileService.uploadFiles(files, ticketId);
+            // 1. 上传文件并保存附件记录
+            List<String> fileUrls = fileService.uploadAttachments(files, ticketId, SecurityUtils.getCurrentUserId())
+                    .stream()
+                    .map(attachment -> "/api/files/" + attachment.getFilePath())
+                    .collect(Collectors.toList());
 
             // 2. 添加附件记录
             AddTicketRecordDTO recordDTO = new AddTicketRecordDTO();
@@ -394,21 +414,15 @@ public class TicketController {
     @GetMapping("/export")
     public void exportTickets(TicketQueryDTO queryDTO, HttpServletResponse response) {
         try {
-            // 1. 获取导出数据
-            List<TicketExportDTO> exportData = ticketService.exportTickets(queryDTO);
-
-            String fileName = String.format("工单列表_%s.xlsx",
+            String fileName = String.format("工单列表_%s",
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
 
-            // 设置响应头
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("utf-8");
-            response.addHeader("Content-Disposition", "attachment;filename=" + URLEncoder.encode(fileName, StandardCharsets.UTF_8));
             response.addHeader("Pragma", "no-cache");
             response.addHeader("Cache-Control", "no-cache");
 
-            // 导出文件
-            ExcelUtil.export(fileName, exportData, TicketExportDTO.class, response);
+            // 流式导出: 逐行读取查询结果并写入Excel, 不在内存中汇总全部数据
+            ExcelUtil.export(fileName, TicketExportDTO.class, response,
+                    rows -> ticketService.exportTickets(queryDTO, rows));
 
         } catch (Exception e) {
             log.error("导出工单失败:", e);
@@ -416,14 +430,16 @@ public class TicketController {
         }
     }
 
+    /**
+     * 导入工单, 按块提交, 返回导入结果及跳过的行
+     */
     @PostMapping("/import")
-    public R<Void> importTickets(@RequestParam("file") MultipartFile file) {
+    public R<TicketImportResultDTO> importTickets(@RequestParam("file") MultipartFile file) {
         try {
-            // TODO: 实现导入功能
-            // 1. 验证文件
-            // 2. 解析数据
-            // 3. 批量保存
-            return R.OK();
+            return R.OK(ticketImportService.importFromExcel(file));
+        } catch (BusinessException e) {
+            log.error("导入工单失败: {}", e.getMessage());
+            return R.<TicketImportResultDTO>builder().msg(e.getMessage()).code(e.getCode()).build();
         } catch (Exception e) {
             log.error("导入工单失败:", e);
             return R.FAIL();
@@ -463,14 +479,21 @@ public class TicketController {
 
     /**
      * 获取工单列表 部门工作台使用
+     * 传入cursor参数时使用游标分页(空串取首页), 不再统计总数
      * @param query 查询条件
-     * @return R<PageResult>
+     * @return R<PageResult> 或 R<CursorPageResult>
      */
     @GetMapping
-    public R<PageResult<TicketListVO>> getTicketListVO(TicketQueryDTO query) {
+    public R<?> getTicketListVO(TicketQueryDTO query) {
         try {
+            if (query.getCursor() != null) {
+                return R.OK(ticketService.getTicketListVOByCursor(query));
+            }
             PageResult<TicketListVO> result = ticketService.getTicketListVO(query);
             return R.OK(result);
+        } catch (BusinessException e) {
+            log.error("查询工单列表失败: {}", e.getMessage());
+            return R.builder().msg(e.getMessage()).code(e.getCode()).build();
         } catch (Exception e) {
             log.error("查询工单列表失败", e);
             return R.FAIL(CodeEnum.INTERNAL_ERROR);
@@ -0,0 +1,98 @@
+package com.icss.etc.ticket.controller;
+
+import com.icss.etc.ticket.entity.R;
+import com.icss.etc.ticket.entity.dto.ticket.TicketQueryDTO;
+import com.icss.etc.ticket.entity.vo.ticket.TicketJobVO;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.service.TicketJobService;
+import com.icss.etc.ticket.util.ExcelUtil;
+import com.icss.etc.ticket.util.SecurityUtils;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@code TicketJobController}
+ * 工单导入/导出后台任务: 提交后返回任务ID, 通过轮询或 WebSocket 获取进度
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping("/tickets/jobs")
+@Slf4j
+public class TicketJobController {
+
+    private final TicketJobService ticketJobService;
+
+    public TicketJobController(TicketJobService ticketJobService) {
+        this.ticketJobService = ticketJobService;
+    }
+
+    /**
+     * 提交导出任务
+     * @param queryDTO 查询条件, 与同步导出相同
+     * @return 任务ID
+     */
+    @PostMapping("/export")
+    public R<String> submitExport(TicketQueryDTO queryDTO) {
+        try {
+            return R.OK(ticketJobService.submitExport(queryDTO, SecurityUtils.getCurrentUserId()));
+        } catch (BusinessException e) {
+            log.error("提交导出任务失败: {}", e.getMessage());
+            return R.<String>builder().msg(e.getMessage()).code(e.getCode()).build();
+        }
+    }
+
+    /**
+     * 提交导入任务
+     * @return 任务ID
+     */
+    @PostMapping("/import")
+    public R<String> submitImport(@RequestParam("file") MultipartFile file) {
+        try {
+            return R.OK(ticketJobService.submitImport(file, SecurityUtils.getCurrentUserId()));
+        } catch (BusinessException e) {
+            log.error("提交导入任务失败: {}", e.getMessage());
+            return R.<String>builder().msg(e.getMessage()).code(e.getCode()).build();
+        }
+    }
+
+    /**
+     * 查询任务进度
+     */
+    @GetMapping("/{jobId}")
+    public R<TicketJobVO> getJob(@PathVariable String jobId) {
+        try {
+            return R.OK(ticketJobService.getJob(jobId, SecurityUtils.getCurrentUserId()));
+        } catch (BusinessException e) {
+            return R.<TicketJobVO>builder().msg(e.getMessage()).code(e.getCode()).build();
+        }
+    }
+
+    /**
+     * 下载导出结果
+     */
+    @GetMapping("/{jobId}/file")
+    public void download(@PathVariable String jobId, HttpServletResponse response) throws Exception {
+        Long userId = SecurityUtils.getCurrentUserId();
+        Path file;
+        TicketJobVO job;
+        try {
+            file = ticketJobService.getExportFile(jobId, userId);
+            job = ticketJobService.getJob(jobId, userId);
+        } catch (BusinessException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+
+        ExcelUtil.setExportResponseHeaders(job.fileName(), response);
+        response.setContentLengthLong(Files.size(file));
+        Files.copy(file, response.getOutputStream());
+    }
+}
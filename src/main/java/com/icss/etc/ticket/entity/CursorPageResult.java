@@ -0,0 +1,26 @@
+package com.icss.etc.ticket.entity;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * {@code CursorPageResult}
+ * 游标(keyset)分页结果, 不返回总记录数
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+public class CursorPageResult<T> {
+    private List<T> list;        // 数据列表
+    private String nextCursor;   // 下一页游标, 没有更多数据时为null
+    private Boolean hasMore;     // 是否还有下一页
+
+    public CursorPageResult(List<T> list, String nextCursor) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.icss.etc.ticket.entity.dto;
+
+/**
+ * {@code DepartmentClosureDTO}
+ * 部门层级闭包表的一行
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record DepartmentClosureDTO(
+        /*
+         * 上级部门ID
+         */
+        Long ancestorId,
+        /*
+         * 下级部门ID
+         */
+        Long descendantId,
+        /*
+         * 层级差, 0 表示自身
+         */
+        Integer depth
+) {
+}
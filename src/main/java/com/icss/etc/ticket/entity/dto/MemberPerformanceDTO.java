@@ -0,0 +1,33 @@
+package com.icss.etc.ticket.entity.dto;
+
+/**
+ * {@code MemberPerformanceDTO}
+ * 处理人绩效指标, 按处理人一次批量统计
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record MemberPerformanceDTO(
+        /*
+         * 处理人ID
+         */
+        Long processorId,
+        /*
+         * 已完成工单的平均处理时间(小时), 没有已完成工单时为null
+         */
+        Double avgProcessTime,
+        /*
+         * 处理中的工单数
+         */
+        Integer currentWorkload,
+        /*
+         * 已完成工单的平均评分, 没有评分时为null
+         */
+        Double satisfaction,
+        /*
+         * 本月完成操作次数
+         */
+        Integer monthlyPerformance
+) {
+}
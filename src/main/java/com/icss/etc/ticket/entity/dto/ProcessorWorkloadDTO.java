@@ -0,0 +1,20 @@
+package com.icss.etc.ticket.entity.dto;
+
+/**
+ * {@code ProcessorWorkloadDTO}
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record ProcessorWorkloadDTO(
+        /*
+         * 处理人ID
+         */
+        Long processorId,
+        /*
+         * 待处理+处理中的工单数量
+         */
+        Long activeCount
+) {
+}
@@ -0,0 +1,35 @@
+package com.icss.etc.ticket.entity.dto;
+
+import java.time.LocalDate;
+
+/**
+ * {@code TicketStatsDTO}
+ * 工单统计汇总表的一个计数
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record TicketStatsDTO(
+        /*
+         * 处理部门ID
+         */
+        Long departmentId,
+        /*
+         * 处理人ID, 0 表示未分配
+         */
+        Long processorId,
+        /*
+         * 工单状态
+         */
+        Integer status,
+        /*
+         * 工单最后变更日期
+         */
+        LocalDate statDate,
+        /*
+         * 工单数, 作为增量时可为负数
+         */
+        Long ticketCount
+) {
+}
@@ -0,0 +1,21 @@
+package com.icss.etc.ticket.entity.dto;
+
+/**
+ * {@code TicketStatusCountDTO}
+ * 按状态汇总的工单数
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record TicketStatusCountDTO(
+        /*
+         * 工单状态
+         */
+        Integer status,
+        /*
+         * 工单数
+         */
+        Long ticketCount
+) {
+}
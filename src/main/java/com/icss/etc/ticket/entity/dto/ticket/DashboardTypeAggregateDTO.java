@@ -0,0 +1,41 @@
+package com.icss.etc.ticket.entity.dto.ticket;
+
+/**
+ * {@code DashboardTypeAggregateDTO}
+ * 仪表盘按工单类型的聚合行, 一次扫描 t_ticket 得到状态数量、评分与类型分布
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record DashboardTypeAggregateDTO(
+        /*
+         * 类型名称, 类型不存在或已删除时为null
+         */
+        String typeName,
+        /*
+         * 工单总数
+         */
+        Long totalCount,
+        /*
+         * 待处理工单数
+         */
+        Long pendingCount,
+        /*
+         * 处理中工单数
+         */
+        Long processingCount,
+        /*
+         * 已完成工单数
+         */
+        Long completedCount,
+        /*
+         * 评分合计
+         */
+        Long scoreSum,
+        /*
+         * 评分次数
+         */
+        Long scoreCount
+) {
+}
@@ -0,0 +1,114 @@
+package com.icss.etc.ticket.entity.dto.ticket;
+
+import com.icss.etc.ticket.entity.Ticket;
+import com.icss.etc.ticket.entity.vo.ticket.TicketListVO;
+import com.icss.etc.ticket.enums.CodeEnum;
+import com.icss.etc.ticket.enums.Priority;
+import com.icss.etc.ticket.enums.TicketStatus;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * {@code TicketCursor}
+ * 工单列表游标, 由排序键(状态排名, 优先级排名, 创建时间, 工单ID)组成
+ * 对前端是不透明的Base64字符串, 各排名的计算规则需与TicketMapper.xml中的排序表达式保持一致
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketCursor {
+    private static final String DELIMITER = ",";
+
+    private Integer statusRank;       // 状态排名
+    private Integer priorityRank;     // 优先级排名
+    private LocalDateTime createTime; // 创建时间
+    private Long ticketId;            // 工单ID
+
+    /**
+     * 工单列表(selectTicketList)的游标: 未完成 &lt; 已完成 &lt; 已关闭
+     */
+    public static TicketCursor ofTicketList(Ticket ticket) {
+        int statusRank = switch (ticket.getStatus() == null ? TicketStatus.PENDING : ticket.getStatus()) {
+            case COMPLETED -> 3;
+            case CLOSED -> 4;
+            default -> 1;
+        };
+        return new TicketCursor(statusRank, priorityRank(ticket.getPriority()),
+                ticket.getCreateTime(), ticket.getTicketId());
+    }
+
+    /**
+     * 待办列表(selectTodoList)的游标: 直接按状态值排序
+     */
+    public static TicketCursor ofTodoList(Ticket ticket) {
+        int statusRank = ticket.getStatus() == null ? 0 : ticket.getStatus().getValue();
+        return new TicketCursor(statusRank, priorityRank(ticket.getPriority()),
+                ticket.getCreateTime(), ticket.getTicketId());
+    }
+
+    /**
+     * 部门工作台列表(getTicketListVO)的游标: 不区分状态
+     */
+    public static TicketCursor ofTicketListVO(TicketListVO ticket) {
+        Priority priority = ticket.getPriority() == null ? null : Priority.fromValue(ticket.getPriority());
+        return new TicketCursor(0, priorityRank(priority), ticket.getCreateTime(), ticket.getTicketId());
+    }
+
+    /**
+     * 优先级排名: 非常紧急 &lt; 紧急 &lt; 普通
+     */
+    private static int priorityRank(Priority priority) {
+        if (priority == null) {
+            return 3;
+        }
+        return switch (priority) {
+            case EXTREMELY_URGENT -> 1;
+            case URGENT -> 2;
+            default -> 3;
+        };
+    }
+
+    /**
+     * 编码为不透明的游标字符串
+     */
+    public String encode() {
+        String raw = statusRank + DELIMITER + priorityRank + DELIMITER
+                + (createTime == null ? "" : createTime.toString()) + DELIMITER + ticketId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     * @param cursor 游标, 为空时表示首页
+     * @return 游标对象, 首页返回null
+     */
+    public static TicketCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER, -1);
+            if (parts.length != 4 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new TicketCursor(
+                    Integer.parseInt(parts[0]),
+                    Integer.parseInt(parts[1]),
+                    LocalDateTime.parse(parts[2]),
+                    Long.parseLong(parts[3]));
+        } catch (Exception e) {
+            throw new BusinessException(CodeEnum.PARAM_ERROR, "无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.icss.etc.ticket.entity.dto.ticket;
+
+import java.util.List;
+
+/**
+ * {@code TicketImportResultDTO}
+ * 工单导入进度/结果
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record TicketImportResultDTO(
+        /*
+         * 已提交的块数
+         */
+        int chunks,
+        /*
+         * 已导入的工单数
+         */
+        int imported,
+        /*
+         * 跳过的行数
+         */
+        int skipped,
+        /*
+         * 跳过原因(最多保留前100条)
+         */
+        List<String> errors
+) {
+}
@@ -23,8 +23,10 @@ public class TicketQueryDTO {
     private String keyword; // 关键字搜索
     private Long processorId; // 处理人ID
     private Long departmentId; // 部门ID
+    private Boolean includeSubDepartments; // 是否包含下级部门的工单
     private Priority priority; // 优先级
     private TicketStatus status; // 状态
     private LocalDateTime startTime; // 开始时间
     private LocalDateTime endTime; // 结束时间
+    private String cursor; // 游标(传入时使用keyset分页, 空串表示首页)
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.icss.etc.ticket.entity.vo;
+
+import java.util.List;
+
+/**
+ * {@code DepartmentTreeNodeVO}
+ * 部门树节点
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record DepartmentTreeNodeVO(
+        /*
+         * 部门ID
+         */
+        Long id,
+        /*
+         * 部门名称
+         */
+        String label,
+        /*
+         * 图标样式
+         */
+        String icon,
+        /*
+         * 子部门, 不可修改
+         */
+        List<DepartmentTreeNodeVO> children
+) {
+}
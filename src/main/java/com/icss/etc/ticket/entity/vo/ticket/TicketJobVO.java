@@ -0,0 +1,64 @@
+package com.icss.etc.ticket.entity.vo.ticket;
+
+import com.icss.etc.ticket.entity.dto.ticket.TicketImportResultDTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * {@code TicketJobVO}
+ * 后台导入/导出任务状态
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public record TicketJobVO(
+        /*
+         * 任务ID
+         */
+        String jobId,
+        /*
+         * 任务类型
+         */
+        Type type,
+        /*
+         * 任务状态
+         */
+        Status status,
+        /*
+         * 已导出/已导入的行数
+         */
+        int processed,
+        /*
+         * 失败原因
+         */
+        String message,
+        /*
+         * 导入进度及跳过的行, 仅导入任务有值
+         */
+        TicketImportResultDTO importResult,
+        /*
+         * 导出文件名(不含后缀), 仅导出任务有值
+         */
+        String fileName,
+        /*
+         * 提交时间
+         */
+        LocalDateTime createTime,
+        /*
+         * 结束时间
+         */
+        LocalDateTime finishTime
+) {
+    public enum Type {
+        EXPORT,
+        IMPORT
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -1,9 +1,6 @@
 package com.icss.etc.ticket.interceptors;
 
-import com.icss.etc.ticket.annotation.RequirePermissions;
-import com.icss.etc.ticket.annotation.RequireRoles;
 import com.icss.etc.ticket.entity.vo.UserViewBackDTO;
-import com.icss.etc.ticket.enums.Logical;
 import com.icss.etc.ticket.exceptions.UnauthorizedException;
 import com.icss.etc.ticket.service.PermissionService;
 import com.icss.etc.ticket.util.JWTUtils;
@@ -18,6 +15,8 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 @Slf4j
@@ -27,6 +26,9 @@ public class AuthInterceptor implements HandlerInterceptor {
     @Autowired
     private PermissionService permissionService;
 
+    /** 处理器方法 -> 授权要求 */
+    private final Map<Method, AuthorizationPlan> plans = new ConcurrentHashMap<>();
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         if (!(handler instanceof HandlerMethod)) {
@@ -45,25 +47,21 @@ public class AuthInterceptor implements HandlerInterceptor {
         token = token.replace("Bearer ", "");
 
         try {
-            UserViewBackDTO userInfo = JWTUtils.getTokenInfo(token);
+            // 同一Token只验签一次, 之后命中缓存
+            JWTUtils.VerifiedToken verified = JWTUtils.verify(token);
+            UserViewBackDTO userInfo = verified.userInfo();
             Long userId = userInfo.getUserId();
 
-            HandlerMethod handlerMethod = (HandlerMethod) handler;
-            Method method = handlerMethod.getMethod();
-            Class<?> declaringClass = method.getDeclaringClass();
-
-            // 检查类级别注解
-            checkPermissionAnnotation(declaringClass.getAnnotation(RequirePermissions.class), userId);
-            checkRoleAnnotation(declaringClass.getAnnotation(RequireRoles.class), userId);
-
-            // 检查方法级别注解
-            checkPermissionAnnotation(method.getAnnotation(RequirePermissions.class), userId);
-            checkRoleAnnotation(method.getAnnotation(RequireRoles.class), userId);
+            // 检查类级别与方法级别注解, 注解只在首次访问时解析
+            AuthorizationPlan plan = plans.computeIfAbsent(
+                    ((HandlerMethod) handler).getMethod(), AuthorizationPlan::of);
+            if (!plan.isEmpty()) {
+                checkPlan(plan, userId);
+            }
 
-            // 6. 更新token
-            String newToken = JWTUtils.updateToken(token);
-            if (!newToken.equals(token)) {
-                response.setHeader("Authorization", newToken);
+            // 6. 进入续签窗口时更新token
+            if (verified.needsRenewal()) {
+                response.setHeader("Authorization", JWTUtils.renew(verified));
             }
 
             SecurityUtils.setCurrentUser(userInfo);
@@ -87,28 +85,17 @@ public class AuthInterceptor implements HandlerInterceptor {
         SecurityUtils.clear();
     }
     /**
-     * 检查权限注解
+     * 按顺序检查授权要求
      */
-    private void checkPermissionAnnotation(RequirePermissions annotation, Long userId) {
-        if (annotation != null) {
-            String[] permissions = annotation.value();
-            Logical logical = annotation.logical();
-            if (!permissionService.checkPermissions(permissions, userId, logical)) {
+    private void checkPlan(AuthorizationPlan plan, Long userId) {
+        for (AuthorizationPlan.Requirement requirement : plan.requirements()) {
+            if (requirement.role()) {
+                if (!permissionService.checkRoles(requirement.codes(), userId, requirement.logical())) {
+                    throw new UnauthorizedException("缺少所需角色");
+                }
+            } else if (!permissionService.checkPermissions(requirement.codes(), userId, requirement.logical())) {
                 throw new UnauthorizedException("缺少所需权限");
             }
         }
     }
-
-    /**
-     * 检查角色注解
-     */
-    private void checkRoleAnnotation(RequireRoles annotation, Long userId) {
-        if (annotation != null) {
-            String[] roles = annotation.value();
-            Logical logical = annotation.logical();
-            if (!permissionService.checkRoles(roles, userId, logical)) {
-                throw new UnauthorizedException("缺少所需角色");
-            }
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.icss.etc.ticket.interceptors;
+
+import com.icss.etc.ticket.annotation.RequirePermissions;
+import com.icss.etc.ticket.annotation.RequireRoles;
+import com.icss.etc.ticket.enums.Logical;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code AuthorizationPlan}
+ * 处理器方法的授权要求, 由类级别与方法级别的 {@code RequirePermissions}/{@code RequireRoles} 注解解析而来,
+ * 每个处理器方法只解析一次
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+record AuthorizationPlan(List<Requirement> requirements) {
+
+    /** 没有任何授权要求的处理器共用此实例 */
+    static final AuthorizationPlan NONE = new AuthorizationPlan(List.of());
+
+    /**
+     * 单条授权要求
+     * @param role    true为角色校验, false为权限校验
+     * @param codes   权限/角色编码
+     * @param logical 逻辑运算符
+     */
+    record Requirement(boolean role, String[] codes, Logical logical) {
+    }
+
+    boolean isEmpty() {
+        return requirements.isEmpty();
+    }
+
+    /**
+     * 解析处理器方法, 校验顺序与原先一致: 类权限, 类角色, 方法权限, 方法角色
+     */
+    static AuthorizationPlan of(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        List<Requirement> requirements = new ArrayList<>(4);
+        addPermissions(requirements, declaringClass.getAnnotation(RequirePermissions.class));
+        addRoles(requirements, declaringClass.getAnnotation(RequireRoles.class));
+        addPermissions(requirements, method.getAnnotation(RequirePermissions.class));
+        addRoles(requirements, method.getAnnotation(RequireRoles.class));
+        return requirements.isEmpty() ? NONE : new AuthorizationPlan(List.copyOf(requirements));
+    }
+
+    private static void addPermissions(List<Requirement> requirements, RequirePermissions annotation) {
+        if (annotation != null) {
+            requirements.add(new Requirement(false, annotation.value().clone(), annotation.logical()));
+        }
+    }
+
+    private static void addRoles(List<Requirement> requirements, RequireRoles annotation) {
+        if (annotation != null) {
+            requirements.add(new Requirement(true, annotation.value().clone(), annotation.logical()));
+        }
+    }
+}
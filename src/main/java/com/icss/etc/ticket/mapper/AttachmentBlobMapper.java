@@ -0,0 +1,39 @@
+package com.icss.etc.ticket.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * {@code AttachmentBlobMapper}
+ * 按内容寻址的附件文件引用计数
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public interface AttachmentBlobMapper {
+
+    /**
+     * 增加一次引用, 文件记录不存在时创建
+     *
+     * @param fileHash 文件内容SHA-256
+     * @param fileSize 文件大小(字节)
+     * @return 影响行数, 1-新建, 2-已存在
+     */
+    int acquire(@Param("fileHash") String fileHash, @Param("fileSize") long fileSize);
+
+    /**
+     * 减少一次引用
+     *
+     * @param fileHash 文件内容SHA-256
+     * @return 影响行数
+     */
+    int release(@Param("fileHash") String fileHash);
+
+    /**
+     * 删除已无引用的文件记录
+     *
+     * @param fileHash 文件内容SHA-256
+     * @return 影响行数, 1 表示文件可以删除
+     */
+    int deleteUnreferenced(@Param("fileHash") String fileHash);
+}
@@ -56,6 +56,14 @@ public interface AttachmentMapper {
      */
     int updateByPrimaryKey(Attachment record);
 
+    /**
+     * 逻辑删除未删除的附件
+     *
+     * @param attachmentId 附件ID
+     * @return 更新行数, 附件不存在或已删除时为0
+     */
+    int softDelete(@Param("attachmentId") Long attachmentId);
+
     List<Attachment> selectByAll(Attachment attachment);
 
     int updateBatchSelective(@Param("list") List<Attachment> list);
@@ -1,4 +1,6 @@
 package com.icss.etc.ticket.mapper;
+import com.icss.etc.ticket.entity.dto.ticket.DashboardTypeAggregateDTO;
+import com.icss.etc.ticket.entity.vo.ticket.TicketTrendVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -15,28 +17,18 @@ import java.util.Map;
 public interface DashboardMapper {
 
     /**
-     * 统计不同状态的工单数量
+     * 按工单类型聚合状态数量与评分, 一次扫描工单表
      */
-    Long countTicketsByStatus(@Param("status") Integer status);
-
-    /**
-     * 获取工单评价的平均分
-     */
-    Double getAverageSatisfactionScore();
+    List<DashboardTypeAggregateDTO> aggregateByType();
 
     /**
      * 获取指定时间范围内的工单趋势
      */
-    List<Map<String,Object>> getTicketTrendStats(
+    List<TicketTrendVO> getTicketTrendStats(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate
     );
 
-    /**
-     * 获取工单类型分布
-     */
-    List<Map<String,Object>> getTicketTypeStats();
-
     /**
      * 获取最近的工单列表
      */
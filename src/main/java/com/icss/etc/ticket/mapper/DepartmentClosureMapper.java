@@ -0,0 +1,64 @@
+package com.icss.etc.ticket.mapper;
+
+import com.icss.etc.ticket.entity.Department;
+import com.icss.etc.ticket.entity.dto.DepartmentClosureDTO;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * {@code DepartmentClosureMapper}
+ * 部门层级闭包表: 每个部门与其每个上级部门(含自身)各一行,
+ * 查询"某部门及所有下级部门"时为一次主键范围查询
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public interface DepartmentClosureMapper {
+
+    /**
+     * 新部门: 自身一行, 加上父部门的每个上级部门各一行
+     *
+     * @param departmentId 部门ID
+     * @param parentId     父部门ID, 可为null
+     * @return 影响行数
+     */
+    int insertNode(@Param("departmentId") Long departmentId, @Param("parentId") Long parentId);
+
+    /**
+     * 是否为下级部门(含自身)
+     *
+     * @param ancestorId   上级部门ID
+     * @param descendantId 部门ID
+     */
+    boolean isDescendant(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    /**
+     * 移动前: 删除子树与原上级部门之间的关系, 子树内部的关系保留
+     *
+     * @param departmentId 子树根部门ID
+     * @return 影响行数
+     */
+    int detachSubtree(@Param("departmentId") Long departmentId);
+
+    /**
+     * 移动后: 子树中每个部门与新父部门的每个上级部门各一行
+     *
+     * @param departmentId 子树根部门ID
+     * @param parentId     新父部门ID
+     * @return 影响行数
+     */
+    int attachSubtree(@Param("departmentId") Long departmentId, @Param("parentId") Long parentId);
+
+    /**
+     * 全部部门的ID与父部门ID, 包含已禁用和已删除的部门
+     */
+    List<Department> selectHierarchy();
+
+    long countRows();
+
+    int deleteAll();
+
+    int batchInsert(@Param("list") List<DepartmentClosureDTO> list);
+}
@@ -25,6 +25,14 @@ public interface NotificationMapper {
      */
     int insert(Notification notification);
 
+    /**
+     * 批量插入通知, 一条多行INSERT语句, 回填通知ID
+     *
+     * @param list 通知列表
+     * @return 影响行数
+     */
+    int batchInsert(@Param("list") List<Notification> list);
+
     /**
      * 更新通知
      * @param notification 通知对象
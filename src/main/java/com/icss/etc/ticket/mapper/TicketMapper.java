@@ -4,10 +4,13 @@ import com.icss.etc.ticket.entity.Ticket;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import com.icss.etc.ticket.entity.TicketRecord;
+import com.icss.etc.ticket.entity.dto.MemberPerformanceDTO;
+import com.icss.etc.ticket.entity.dto.ProcessorWorkloadDTO;
 import com.icss.etc.ticket.entity.dto.ticket.*;
 import com.icss.etc.ticket.entity.vo.TicketDetailVO;
 import com.icss.etc.ticket.entity.vo.ticket.DepartmentStatisticsVO;
@@ -16,6 +19,7 @@ import com.icss.etc.ticket.entity.vo.ticket.TicketListVO;
 import com.icss.etc.ticket.enums.TicketStatus;
 import jakarta.validation.constraints.NotNull;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * {@code TicketMapper} 工单数据访问层
@@ -77,6 +81,18 @@ public interface TicketMapper {
      */
     List<Ticket> selectTodoList(@Param("queryDTO") TicketQueryDTO queryDTO);
 
+    /**
+     * 游标分页获取待处理工单列表
+     *
+     * @param queryDTO 查询条件
+     * @param cursor   上一页最后一条的游标, 首页为null
+     * @param limit    最多返回条数
+     * @return 工单列表
+     */
+    List<Ticket> selectTodoListByCursor(@Param("queryDTO") TicketQueryDTO queryDTO,
+                                        @Param("cursor") TicketCursor cursor,
+                                        @Param("limit") int limit);
+
     /**
      * 按条件统计工单数量
      */
@@ -89,6 +105,14 @@ public interface TicketMapper {
                         @Param("processorId") Long processorId,
                         @Param("updateBy") Long updateBy);
 
+    /**
+     * 转交工单到新部门: 清空处理人并回到待处理, 由分配引擎在新部门内重新分配
+     * @return 影响行数, 工单已完成/关闭或已删除时为0
+     */
+    int transferTicket(@Param("ticketId") Long ticketId,
+                       @Param("departmentId") Long departmentId,
+                       @Param("updateBy") Long updateBy);
+
     /**
      * 更新工单状态
      */
@@ -119,6 +143,11 @@ public interface TicketMapper {
      */
     List<TicketExportDTO> selectForExport(@Param("query") TicketQueryDTO query);
 
+    /**
+     * 流式导出工单数据, 结果逐行交给 handler, 不在内存中汇总
+     */
+    void streamForExport(@Param("query") TicketQueryDTO query, ResultHandler<TicketExportDTO> handler);
+
 
     /**
      * 获取工单处理历史记录
@@ -133,6 +162,11 @@ public interface TicketMapper {
 
     int insertTicket(Ticket ticket);
 
+    /**
+     * 批量创建工单, 一条多行INSERT语句, 回填工单ID
+     */
+    int batchInsertTickets(@Param("list") List<Ticket> tickets);
+
     int updateTicket(Ticket ticket);
 
     /**
@@ -143,6 +177,18 @@ public interface TicketMapper {
      */
     List<Ticket> selectTicketList(@Param("query") TicketQueryDTO queryDTO);
 
+    /**
+     * 游标分页获取工单列表
+     *
+     * @param queryDTO 查询条件
+     * @param cursor   上一页最后一条的游标, 首页为null
+     * @param limit    最多返回条数
+     * @return 工单列表
+     */
+    List<Ticket> selectTicketListByCursor(@Param("query") TicketQueryDTO queryDTO,
+                                          @Param("cursor") TicketCursor cursor,
+                                          @Param("limit") int limit);
+
     /**
      * 获取工单详情
      *
@@ -219,6 +265,14 @@ public interface TicketMapper {
 
     Integer getMonthlyPerformance(@Param("userId") Long userId);
 
+    /**
+     * 批量获取处理人的绩效指标: 平均处理时间、当前工作量、满意度、本月绩效
+     *
+     * @param userIds 用户ID
+     * @return 每个用户一行
+     */
+    List<MemberPerformanceDTO> selectMemberPerformance(@Param("userIds") Collection<Long> userIds);
+
     /**
      * 获取所有待分配的工单
      *
@@ -226,6 +280,38 @@ public interface TicketMapper {
      */
     List<Ticket> selectPendingTickets();
 
+    /**
+     * 锁定并获取待分配的工单, 只返回分配所需的列; 已被其他事务锁定的工单跳过
+     *
+     * @param ticketIds 限定的工单ID, 为null时不限
+     * @param after     上一批最后一个工单(createTime, ticketId), 为null时从头开始
+     * @param limit     最多锁定的工单数, 为null时不限
+     * @return 待分配工单列表(ticketId, departmentId, createTime), 按创建时间排序
+     */
+    List<Ticket> selectPendingTicketsForAssign(@Param("ticketIds") Collection<Long> ticketIds,
+                                               @Param("after") Ticket after,
+                                               @Param("limit") Integer limit);
+
+    /**
+     * 批量统计处理人的活跃工单数(待处理+处理中)
+     *
+     * @param processorIds 处理人ID
+     * @return 有活跃工单的处理人及数量, 没有活跃工单的处理人不返回
+     */
+    List<ProcessorWorkloadDTO> countActiveTicketsByProcessors(@Param("processorIds") Collection<Long> processorIds);
+
+    /**
+     * 批量分配工单, 一条语句更新多个工单的处理人
+     *
+     * @param tickets    工单(ticketId, processorId)
+     * @param status     分配后的状态
+     * @param updateTime 更新时间
+     * @return 更新的行数
+     */
+    int batchAssignTickets(@Param("tickets") List<Ticket> tickets,
+                           @Param("status") TicketStatus status,
+                           @Param("updateTime") LocalDateTime updateTime);
+
     BigDecimal calAvgSatisfaction();
 
     List<RecentTicketDTO> selectRecentTickets(@Param("days") int days);
@@ -240,16 +326,32 @@ public interface TicketMapper {
 
     /**
      * 计算部门工单平均满意度
+     * @param includeSubDepartments 是否包含下级部门
      */
-    Double calculateDepartmentAvgSatisfaction(@Param("departmentId") Long departmentId);
+    Double calculateDepartmentAvgSatisfaction(@Param("departmentId") Long departmentId,
+                                              @Param("includeSubDepartments") boolean includeSubDepartments);
 
     /**
      * 查询部门工单趋势统计
+     * @param includeSubDepartments 是否包含下级部门
      */
-    List<Map<String, Object>> selectDepartmentTicketTrends(@Param("departmentId") Long departmentId);
+    List<Map<String, Object>> selectDepartmentTicketTrends(@Param("departmentId") Long departmentId,
+                                                           @Param("includeSubDepartments") boolean includeSubDepartments);
 
     List<TicketListVO> getTicketListVO(@Param("query") TicketQueryDTO query);
 
+    /**
+     * 游标分页获取部门工作台工单列表
+     *
+     * @param query  查询条件
+     * @param cursor 上一页最后一条的游标, 首页为null
+     * @param limit  最多返回条数
+     * @return 工单列表
+     */
+    List<TicketListVO> getTicketListVOByCursor(@Param("query") TicketQueryDTO query,
+                                               @Param("cursor") TicketCursor cursor,
+                                               @Param("limit") int limit);
+
     Long countTicketsForDept(@Param("query") TicketQueryDTO query);
 
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.icss.etc.ticket.mapper;
+
+import com.icss.etc.ticket.entity.dto.TicketStatsDTO;
+import com.icss.etc.ticket.entity.dto.TicketStatusCountDTO;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@code TicketStatsMapper}
+ * 工单统计汇总表, 按 (部门, 处理人, 状态, 最后变更日期) 计数
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public interface TicketStatsMapper {
+
+    /**
+     * 锁定工单并统计其当前所在的计数, 用于变更前扣减
+     *
+     * @param ticketIds 工单ID
+     * @return 各计数的工单数
+     */
+    List<TicketStatsDTO> lockCurrentStats(@Param("ticketIds") Collection<Long> ticketIds);
+
+    /**
+     * 按增量调整计数, 计数不存在时创建
+     *
+     * @param deltas 增量
+     * @return 影响行数
+     */
+    int applyDeltas(@Param("deltas") List<TicketStatsDTO> deltas);
+
+    /**
+     * 按工单当前状态增加计数, 用于新建或变更后
+     *
+     * @param ticketIds 工单ID
+     * @return 影响行数
+     */
+    int addFromTickets(@Param("ticketIds") Collection<Long> ticketIds);
+
+    /**
+     * 按状态汇总工单数, 条件为空时不过滤
+     *
+     * @param departmentId          处理部门ID
+     * @param includeSubDepartments 是否包含下级部门
+     * @param processorId           处理人ID
+     * @param statDate              最后变更日期
+     */
+    List<TicketStatusCountDTO> sumByStatus(@Param("departmentId") Long departmentId,
+                                           @Param("includeSubDepartments") boolean includeSubDepartments,
+                                           @Param("processorId") Long processorId,
+                                           @Param("statDate") LocalDate statDate);
+
+    /**
+     * 汇总表记录数
+     */
+    long countRows();
+
+    /**
+     * 对账: 按工单表重新计算全部计数并覆盖
+     *
+     * @return 影响行数
+     */
+    int rebuildFromTickets();
+
+    /**
+     * 对账: 工单表中已没有对应工单的计数清零
+     *
+     * @return 影响行数
+     */
+    int clearStale();
+
+    /**
+     * 删除为零的计数
+     *
+     * @return 影响行数
+     */
+    int deleteEmpty();
+}
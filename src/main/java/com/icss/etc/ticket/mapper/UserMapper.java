@@ -9,6 +9,7 @@ import com.icss.etc.ticket.entity.vo.DeptMemberVO;
 import com.icss.etc.ticket.entity.dto.RegisteredDTO;
 import com.icss.etc.ticket.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -151,6 +152,13 @@ public interface UserMapper {
      */
     List<User> selectDepartmentProcessors(@Param("departmentId") Long departmentId);
 
+    /**
+     * 批量获取多个部门的处理人
+     * @param departmentIds 部门ID
+     * @return 处理人列表(含departmentId), 每个用户只出现一次
+     */
+    List<User> selectProcessorsByDepartments(@Param("departmentIds") Collection<Long> departmentIds);
+
     /**
      * 根据部门ID查询部门成员
      * @param departmentId 部门ID
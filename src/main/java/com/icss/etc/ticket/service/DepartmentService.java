@@ -5,7 +5,6 @@ import com.icss.etc.ticket.entity.vo.*;
 import org.apache.ibatis.annotations.Param;
 import com.icss.etc.ticket.entity.vo.ticket.DepartmentWorkloadVO;
 import java.util.List;
-import java.util.Map;
 
 public interface DepartmentService {
     /**
@@ -94,7 +93,11 @@ public interface DepartmentService {
 
 
 
-    List<Map<String, Object>> getDepartmentTree();
+    /**
+     * 部门树
+     * @return 根部门列表
+     */
+    List<DepartmentTreeNodeVO> getDepartmentTree();
 
 
     int selectDepartmentProcessors(Long userId);
@@ -105,6 +108,12 @@ public interface DepartmentService {
      */
     DepartmentStatsVO getDepartmentStats(Long departmentId);
 
+    /**
+     * 获取部门统计数据
+     * @param includeSubDepartments 是否包含所有下级部门
+     */
+    DepartmentStatsVO getDepartmentStats(Long departmentId, boolean includeSubDepartments);
+
     /**
      * 获取部门成员列表
      */
@@ -1,5 +1,6 @@
 package com.icss.etc.ticket.service;
 
+import com.icss.etc.ticket.entity.Attachment;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -25,8 +26,24 @@ public interface FileService {
      */
     List<String> uploadFiles(MultipartFile[] files, Long ticketId);
 
+    /**
+     * 批量上传工单附件: 并行写入文件后一次性批量保存附件记录
+     * @param files 文件
+     * @param ticketId 工单ID
+     * @param userId 上传人ID
+     * @return 已保存的附件
+     */
+    List<Attachment> uploadAttachments(MultipartFile[] files, Long ticketId, Long userId);
+
     /**
      * 删除文件
      */
     void deleteFile(String fileUrl);
+
+    /**
+     * 删除附件: 逻辑删除记录并释放文件, 重复删除不会再次释放
+     * @param attachmentId 附件ID
+     * @return 是否删除, 附件不存在或已删除时返回false
+     */
+    boolean deleteAttachment(Long attachmentId);
 }
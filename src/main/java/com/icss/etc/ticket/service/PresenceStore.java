@@ -0,0 +1,46 @@
+package com.icss.etc.ticket.service;
+
+/**
+ * {@code PresenceStore}
+ * 在线状态存储, 记录 userId -> 最后活跃时间(毫秒)
+ * 默认为进程内实现, 多节点部署时通过 presence.store=redis 切换为 Redis 实现
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public interface PresenceStore {
+
+    /** 用户不在线时 {@link #lastSeen(long[])} 返回的值 */
+    long NOT_ONLINE = Long.MIN_VALUE;
+
+    /**
+     * 记录用户活跃(登录/心跳)
+     * @param userId 用户ID
+     * @param seenAt 活跃时间戳(毫秒)
+     */
+    void touch(long userId, long seenAt);
+
+    /**
+     * 移除用户(登出)
+     */
+    void remove(long userId);
+
+    /**
+     * 批量查询最后活跃时间
+     * @param userIds 用户ID
+     * @return 与 userIds 下标一一对应, 不存在时为 {@link #NOT_ONLINE}
+     */
+    long[] lastSeen(long[] userIds);
+
+    /**
+     * 统计活跃时间晚于 after 的用户数
+     */
+    int count(long after);
+
+    /**
+     * 清理活跃时间不晚于 deadline 的用户
+     * @return 清理的条数
+     */
+    int removeExpired(long deadline);
+}
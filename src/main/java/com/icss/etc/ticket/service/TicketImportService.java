@@ -1,5 +1,11 @@
 package com.icss.etc.ticket.service;
 
+import com.icss.etc.ticket.entity.dto.ticket.TicketImportResultDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.util.function.Consumer;
+
 /**
  * {@code TicketImportService}
  *
@@ -9,4 +15,16 @@ package com.icss.etc.ticket.service;
  */
 public interface TicketImportService {
 
+    /**
+     * 导入上传的Excel工单
+     */
+    TicketImportResultDTO importFromExcel(MultipartFile file);
+
+    /**
+     * 流式分块导入Excel工单, 每块单独提交, 每提交一块回调一次进度
+     * @param file Excel文件(.xlsx)
+     * @param operatorId 导入人ID
+     * @param progress 进度回调
+     */
+    TicketImportResultDTO importFromExcel(File file, Long operatorId, Consumer<TicketImportResultDTO> progress);
 }
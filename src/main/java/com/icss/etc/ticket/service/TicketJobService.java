@@ -0,0 +1,44 @@
+package com.icss.etc.ticket.service;
+
+import com.icss.etc.ticket.entity.dto.ticket.TicketQueryDTO;
+import com.icss.etc.ticket.entity.vo.ticket.TicketJobVO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+
+/**
+ * {@code TicketJobService}
+ * 工单导入/导出后台任务
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public interface TicketJobService {
+
+    /**
+     * 提交导出任务
+     * @param queryDTO 查询条件
+     * @param userId 提交人ID
+     * @return 任务ID
+     */
+    String submitExport(TicketQueryDTO queryDTO, Long userId);
+
+    /**
+     * 提交导入任务, 上传文件在返回前保存到任务目录
+     * @param file Excel文件(.xlsx)
+     * @param userId 提交人ID
+     * @return 任务ID
+     */
+    String submitImport(MultipartFile file, Long userId);
+
+    /**
+     * 查询任务状态, 只能查询自己提交的任务
+     */
+    TicketJobVO getJob(String jobId, Long userId);
+
+    /**
+     * 获取已完成导出任务的文件
+     */
+    Path getExportFile(String jobId, Long userId);
+}
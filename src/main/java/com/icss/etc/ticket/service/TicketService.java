@@ -1,6 +1,7 @@
 package com.icss.etc.ticket.service;
 
 import com.github.pagehelper.PageInfo;
+import com.icss.etc.ticket.entity.CursorPageResult;
 import com.icss.etc.ticket.entity.PageResult;
 import com.icss.etc.ticket.entity.Ticket;
 import com.icss.etc.ticket.entity.TicketType;
@@ -16,6 +17,7 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @ClassName TicketService
@@ -32,6 +34,11 @@ public interface TicketService {
      */
     PageInfo<Ticket> getTicketList(TicketQueryDTO queryDTO);
 
+    /**
+     * 游标分页获取工单列表
+     */
+    CursorPageResult<Ticket> getTicketListByCursor(TicketQueryDTO queryDTO);
+
     /**
      * 获取工单详情
      */
@@ -72,6 +79,11 @@ public interface TicketService {
      */
     PageInfo<Ticket> getTodoTickets(TicketQueryDTO queryDTO);
 
+    /**
+     * 游标分页获取待办工单
+     */
+    CursorPageResult<Ticket> getTodoTicketsByCursor(TicketQueryDTO queryDTO);
+
     /**
      * 获取工单统计
      */
@@ -88,9 +100,15 @@ public interface TicketService {
     List<TicketExportDTO> exportTickets(TicketQueryDTO queryDTO);
 
     /**
-     * 批量导入工单
+     * 流式导出工单, 每读到一行交给 consumer
      */
-    void importTickets(List<TicketExportDTO> tickets);
+    void exportTickets(TicketQueryDTO queryDTO, Consumer<TicketExportDTO> consumer);
+
+    /**
+     * 批量导入工单, 在一个事务中写入; 大文件由调用方分块调用
+     * @param tickets 已解析好部门、优先级、类型及创建人的工单
+     */
+    void importTickets(List<Ticket> tickets);
 
     /**
      * 获取工单类型
@@ -165,4 +183,9 @@ public interface TicketService {
     UserPermission checkOperationPermission(CheckOperationDTO checkOperationDTO);
 
     PageResult<TicketListVO> getTicketListVO(TicketQueryDTO query);
+
+    /**
+     * 游标分页获取部门工作台工单列表, 不统计总数
+     */
+    CursorPageResult<TicketListVO> getTicketListVOByCursor(TicketQueryDTO query);
 }
\ No newline at end of file
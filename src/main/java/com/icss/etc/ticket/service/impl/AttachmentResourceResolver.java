@@ -0,0 +1,143 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.util.PropertiesUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@code AttachmentResourceResolver}
+ * 附件下载/预览响应
+ * 以 {@link Resource} 作为响应体, 由 Spring 直接流式写出: 带 Range 的请求按 ResourceRegion 返回206,
+ * If-None-Match 与 ETag 一致时返回304; 每个文件的 Content-Type 解析一次后缓存
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class AttachmentResourceResolver {
+
+    /** 缓存 Content-Type 的文件数上限 */
+    private static final int CONTENT_TYPE_CACHE_SIZE = 10000;
+
+    private final PropertiesUtil propertiesUtil;
+    private final AttachmentStore attachmentStore;
+
+    /** 文件名 -> Content-Type, 按访问顺序淘汰 */
+    private final Map<String, MediaType> contentTypes = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MediaType> eldest) {
+                    return size() > CONTENT_TYPE_CACHE_SIZE;
+                }
+            });
+
+    public AttachmentResourceResolver(PropertiesUtil propertiesUtil, AttachmentStore attachmentStore) {
+        this.propertiesUtil = propertiesUtil;
+        this.attachmentStore = attachmentStore;
+    }
+
+    /**
+     * 附件文件: 按内容保存的文件在哈希目录下, 旧文件直接在上传目录下
+     * @param fileName 存储文件名(附件的 file_path)
+     * @return 文件路径, 文件不存在或不在上传目录下时返回null
+     */
+    public Path resolve(String fileName) {
+        String hash = attachmentStore.hashOf(fileName);
+        if (hash != null) {
+            Path blob = attachmentStore.resolve(hash);
+            return Files.isRegularFile(blob) ? blob : null;
+        }
+        Path uploadDir = Paths.get(propertiesUtil.getProperty("upload.path", "./uploads/")).toAbsolutePath().normalize();
+        Path file = uploadDir.resolve(fileName).normalize();
+        if (!file.startsWith(uploadDir) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * 构造文件响应
+     * @param file 文件
+     * @param fileName 下载/预览时显示的文件名
+     * @param inline true 在浏览器中直接打开, false 作为附件下载
+     */
+    public ResponseEntity<Resource> serve(Path file, String fileName, boolean inline) throws IOException {
+        // 每次使用前向服务端校验, 未修改时只返回304
+        return serve(file, fileName, inline, CacheControl.noCache());
+    }
+
+    /**
+     * 构造文件响应, 指定缓存策略
+     * @param file 文件
+     * @param fileName 下载/预览时显示的文件名
+     * @param inline true 在浏览器中直接打开, false 作为附件下载
+     * @param cacheControl 缓存策略
+     */
+    public ResponseEntity<Resource> serve(Path file, String fileName, boolean inline, CacheControl cacheControl)
+            throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // 按内容保存的文件直接以内容哈希作为 ETag
+        String hash = attachmentStore.hashOf(fileName);
+        String etag = "\"" + (hash != null ? hash
+                : Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified)) + "\"";
+        ContentDisposition disposition = (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(fileName, StandardCharsets.UTF_8)
+                .build();
+
+        return ResponseEntity.ok()
+                .contentType(contentType(file, fileName))
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * 文件的 Content-Type, 先按文件名的扩展名识别(按内容保存的文件本身没有扩展名), 无法识别时为 application/octet-stream
+     * @param file 文件
+     * @param fileName 存储文件名
+     */
+    public MediaType contentType(Path file, String fileName) {
+        MediaType cached = contentTypes.get(fileName);
+        if (cached != null) {
+            return cached;
+        }
+        MediaType mediaType = probe(file, fileName);
+        contentTypes.put(fileName, mediaType);
+        return mediaType;
+    }
+
+    private MediaType probe(Path file, String fileName) {
+        Optional<MediaType> byName = MediaTypeFactory.getMediaType(fileName);
+        if (byName.isPresent()) {
+            return byName.get();
+        }
+        try {
+            String probed = Files.probeContentType(file);
+            if (probed != null) {
+                return MediaType.parseMediaType(probed);
+            }
+        } catch (IOException | InvalidMediaTypeException e) {
+            log.warn("识别文件类型失败: {}", file, e);
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.enums.CodeEnum;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.mapper.AttachmentBlobMapper;
+import com.icss.etc.ticket.util.PropertiesUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * {@code AttachmentStore}
+ * 按内容寻址的附件存储
+ * 上传内容边写临时文件边计算 SHA-256, 完成后原子移动到 上传目录/ab/cd/&lt;hash&gt;;
+ * 相同内容只保存一份, t_attachment_blob 记录引用数, 最后一个引用释放时才删除文件。
+ * 多个节点共用上传目录, 文件的检查/写入/删除都在持有 t_attachment_blob 对应行锁的事务内进行,
+ * 同一哈希的保存与释放在所有节点间串行。
+ * 附件的 file_path 为 &lt;hash&gt;.&lt;扩展名&gt;, 扩展名只用于识别文件类型
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class AttachmentStore {
+
+    /** 存储文件名: 64位小写十六进制哈希, 可带扩展名 */
+    private static final Pattern STORED_NAME = Pattern.compile("^([0-9a-f]{64})(\\.[A-Za-z0-9]{1,10})?$");
+
+    /** 临时文件目录, 与存储目录在同一文件系统上以便原子移动 */
+    private static final String TEMP_DIR = ".tmp";
+
+    private final PropertiesUtil propertiesUtil;
+    private final AttachmentBlobMapper attachmentBlobMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public AttachmentStore(PropertiesUtil propertiesUtil, AttachmentBlobMapper attachmentBlobMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.propertiesUtil = propertiesUtil;
+        this.attachmentBlobMapper = attachmentBlobMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 已保存的文件
+     *
+     * @param hash    内容SHA-256
+     * @param size    文件大小(字节)
+     * @param created 是否新写入, false 表示与已有文件内容相同
+     */
+    public record Blob(String hash, long size, boolean created) {
+    }
+
+    /**
+     * 保存文件内容并增加一次引用
+     *
+     * @param in 文件内容, 由调用方关闭
+     * @return 保存结果
+     */
+    public Blob store(InputStream in) throws IOException {
+        Path root = root();
+        Path tempDir = Files.createDirectories(root.resolve(TEMP_DIR));
+        Path temp = Files.createTempFile(tempDir, "upload-", ".part");
+        try {
+            // 1. 写临时文件, 同时计算哈希
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+                size = Files.copy(digestIn, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            // 2. 先增加引用并锁定记录行, 再检查文件: 其他节点此时无法释放并删除该文件;
+            //    文件不存在时移动到存储目录, 已存在时丢弃临时文件
+            Path target = blobPath(root, hash);
+            boolean created = transactionTemplate.execute(status -> {
+                attachmentBlobMapper.acquire(hash, size);
+                if (Files.exists(target)) {
+                    return false;
+                }
+                try {
+                    Files.createDirectories(target.getParent());
+                    moveAtomically(temp, target);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+            log.debug("保存附件 {} ({} 字节), 新文件: {}", hash, size, created);
+            return new Blob(hash, size, created);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 释放一次引用, 没有引用时删除文件
+     *
+     * @param hash 内容SHA-256
+     */
+    public void release(String hash) {
+        // 文件在提交前删除, 期间记录行保持锁定, 其他节点的保存会等待本事务结束后重新写入文件
+        transactionTemplate.executeWithoutResult(status -> {
+            attachmentBlobMapper.release(hash);
+            if (attachmentBlobMapper.deleteUnreferenced(hash) > 0) {
+                try {
+                    Files.deleteIfExists(blobPath(root(), hash));
+                } catch (IOException e) {
+                    log.error("删除附件文件失败: {}", hash, e);
+                    throw new BusinessException(CodeEnum.INTERNAL_ERROR);
+                }
+            }
+        });
+    }
+
+    /**
+     * 存储文件名对应的内容哈希
+     *
+     * @param fileName 附件的 file_path
+     * @return 哈希, 旧格式文件名返回null
+     */
+    public String hashOf(String fileName) {
+        var matcher = STORED_NAME.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 内容哈希对应的文件路径
+     */
+    public Path resolve(String hash) {
+        return blobPath(root(), hash);
+    }
+
+    private Path root() {
+        return Paths.get(propertiesUtil.getProperty("upload.path", "./uploads/")).toAbsolutePath().normalize();
+    }
+
+    private static Path blobPath(Path root, String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
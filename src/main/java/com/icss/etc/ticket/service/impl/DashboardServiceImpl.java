@@ -1,15 +1,18 @@
 package com.icss.etc.ticket.service.impl;
 
+import com.icss.etc.ticket.entity.dto.ticket.DashboardTypeAggregateDTO;
 import com.icss.etc.ticket.entity.vo.RecentTicketVO;
 import com.icss.etc.ticket.entity.vo.ticket.DashboardStatsVO;
 import com.icss.etc.ticket.service.DashboardService;
-import com.icss.etc.ticket.enums.TicketStatus;
 import com.icss.etc.ticket.mapper.DashboardMapper;
 import com.icss.etc.ticket.entity.vo.ticket.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -32,42 +35,42 @@ public class DashboardServiceImpl implements DashboardService {
     public DashboardStatsVO getDashboardStats() {
         DashboardStatsVO statsVO = new DashboardStatsVO();
 
-        // 1. 获取各状态工单数量
-        statsVO.setPendingCount(dashboardMapper.countTicketsByStatus(TicketStatus.PENDING.getValue()));
-        statsVO.setProcessingCount(dashboardMapper.countTicketsByStatus(TicketStatus.PROCESSING.getValue()));
-        statsVO.setCompletedCount(dashboardMapper.countTicketsByStatus(TicketStatus.COMPLETED.getValue()));
-
-        // 2. 获取平均满意度
-        Double avgScore = dashboardMapper.getAverageSatisfactionScore();
-        statsVO.setAvgSatisfaction(avgScore != null ? avgScore : 0.0);
+        // 1. 按类型一次聚合, 汇总出各状态数量、平均满意度与类型分布
+        List<DashboardTypeAggregateDTO> rows = dashboardMapper.aggregateByType();
+        long total = 0, pending = 0, processing = 0, completed = 0, scoreSum = 0, scoreCount = 0;
+        for (DashboardTypeAggregateDTO row : rows) {
+            total += row.totalCount();
+            pending += row.pendingCount();
+            processing += row.processingCount();
+            completed += row.completedCount();
+            scoreSum += row.scoreSum();
+            scoreCount += row.scoreCount();
+        }
+        statsVO.setPendingCount(pending);
+        statsVO.setProcessingCount(processing);
+        statsVO.setCompletedCount(completed);
+        statsVO.setAvgSatisfaction(scoreCount > 0 ? (double) scoreSum / scoreCount : 0.0);
+
+        // 2. 类型分布, 占比以全部工单为基数
+        long totalCount = total;
+        List<TicketTypeStatsVO> types = rows.stream()
+                .filter(row -> row.typeName() != null)
+                .sorted(Comparator.comparing(DashboardTypeAggregateDTO::totalCount).reversed())
+                .map(row -> {
+                    TicketTypeStatsVO type = new TicketTypeStatsVO();
+                    type.setTypeName(row.typeName());
+                    type.setCount(row.totalCount());
+                    type.setProportion(BigDecimal.valueOf(row.totalCount() * 100.0 / totalCount)
+                            .setScale(2, RoundingMode.HALF_UP).doubleValue());
+                    return type;
+                })
+                .collect(Collectors.toList());
+        statsVO.setTypes(types);
 
         // 3. 获取最近7天趋势
         LocalDateTime endDate = LocalDateTime.now();
         LocalDateTime startDate = endDate.minusDays(6);
-        List<Map<String,Object>> trendData = dashboardMapper.getTicketTrendStats(startDate, endDate);
-
-        // 转换趋势数据
-        List<TicketTrendVO> trends = trendData.stream().map(data -> {
-            TicketTrendVO trend = new TicketTrendVO();
-            trend.setDate(data.get("date").toString());
-            trend.setNewCount(Long.valueOf(data.get("new_count").toString()));
-            trend.setCompletedCount(Long.valueOf(data.get("completed_count").toString()));
-            return trend;
-        }).collect(Collectors.toList());
-        statsVO.setTrends(trends);
-
-        // 4. 获取类型分布
-        List<Map<String,Object>> typeData = dashboardMapper.getTicketTypeStats();
-
-        // 转换类型分布数据
-        List<TicketTypeStatsVO> types = typeData.stream().map(data -> {
-            TicketTypeStatsVO type = new TicketTypeStatsVO();
-            type.setTypeName(data.get("type_name").toString());
-            type.setCount(Long.valueOf(data.get("count").toString()));
-            type.setProportion(Double.valueOf(data.get("proportion").toString()));
-            return type;
-        }).collect(Collectors.toList());
-        statsVO.setTypes(types);
+        statsVO.setTrends(dashboardMapper.getTicketTrendStats(startDate, endDate));
 
         return statsVO;
     }
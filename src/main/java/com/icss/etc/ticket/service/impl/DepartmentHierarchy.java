@@ -0,0 +1,108 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.Department;
+import com.icss.etc.ticket.entity.dto.DepartmentClosureDTO;
+import com.icss.etc.ticket.enums.CodeEnum;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.mapper.DepartmentClosureMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * {@code DepartmentHierarchy}
+ * 部门层级闭包表的维护
+ * t_department_closure 保存每个部门与其所有上级部门(含自身)的关系, "某部门及所有下级部门"的筛选
+ * 写作 {@code department_id IN (SELECT descendant_id FROM t_department_closure WHERE ancestor_id = ?)},
+ * 不需要逐级查询子部门。新增部门、修改父部门时由 {@code DepartmentServiceImpl} 在同一事务内调用;
+ * 逻辑删除不改变层级, 已删除部门的工单仍计入其上级部门
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class DepartmentHierarchy {
+
+    /** 重建时每条多行INSERT包含的行数 */
+    private static final int BATCH_SIZE = 500;
+
+    private final DepartmentClosureMapper departmentClosureMapper;
+
+    public DepartmentHierarchy(DepartmentClosureMapper departmentClosureMapper) {
+        this.departmentClosureMapper = departmentClosureMapper;
+    }
+
+    /**
+     * 新增部门后调用
+     *
+     * @param departmentId 部门ID
+     * @param parentId     父部门ID, 可为null
+     */
+    public void added(Long departmentId, Long parentId) {
+        departmentClosureMapper.insertNode(departmentId, parentId);
+    }
+
+    /**
+     * 修改父部门前调用: 校验不会形成环, 再把整个子树移到新父部门下
+     *
+     * @param departmentId 部门ID
+     * @param parentId     新父部门ID
+     */
+    public void moved(Long departmentId, Long parentId) {
+        if (departmentClosureMapper.isDescendant(departmentId, parentId)) {
+            throw new BusinessException(CodeEnum.PARAM_ERROR, "不能将部门移动到自身或其下级部门下");
+        }
+        departmentClosureMapper.detachSubtree(departmentId);
+        departmentClosureMapper.attachSubtree(departmentId, parentId);
+    }
+
+    /**
+     * 按部门表重建闭包表, 用于批量导入/修改部门后及首次部署
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void rebuild() {
+        List<Department> departments = departmentClosureMapper.selectHierarchy();
+        Map<Long, Long> parents = new HashMap<>();
+        for (Department department : departments) {
+            parents.put(department.getDepartmentId(), department.getParentId());
+        }
+
+        // 每个部门沿父部门向上, 父部门不存在或出现环时停止
+        List<DepartmentClosureDTO> rows = new ArrayList<>();
+        for (Long departmentId : parents.keySet()) {
+            Set<Long> visited = new HashSet<>();
+            Long ancestorId = departmentId;
+            int depth = 0;
+            while (ancestorId != null && parents.containsKey(ancestorId) && visited.add(ancestorId)) {
+                rows.add(new DepartmentClosureDTO(ancestorId, departmentId, depth++));
+                ancestorId = parents.get(ancestorId);
+            }
+        }
+
+        departmentClosureMapper.deleteAll();
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            departmentClosureMapper.batchInsert(rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        log.info("重建部门层级: {} 个部门, {} 行", parents.size(), rows.size());
+    }
+
+    /**
+     * 首次部署时闭包表为空, 启动后从部门表生成
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (departmentClosureMapper.countRows() == 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("生成部门层级失败:", e);
+        }
+    }
+}
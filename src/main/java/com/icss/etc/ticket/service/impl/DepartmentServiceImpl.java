@@ -17,11 +17,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * TODO 类作用描述
@@ -39,15 +37,27 @@ public class DepartmentServiceImpl implements DepartmentService {
     private UserMapper userMapper;
     @Autowired
     private TicketMapper ticketMapper;
+    @Autowired
+    private TicketStatsRollup ticketStatsRollup;
+    @Autowired
+    private DepartmentTreeCache departmentTreeCache;
+    @Autowired
+    private DepartmentHierarchy departmentHierarchy;
 
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int insert(Department record) {
         if(departmentMapper.selectByPrimaryKey(record.getDepartmentId()) != null){
             log.error(CodeEnum.DEPARTMENT_IS_EXIST.getMsg());
             return CodeEnum.DEPARTMENT_IS_EXIST.getCode();
         }
-         return departmentMapper.insert(record);
+        int rows = departmentMapper.insert(record);
+        if(rows > 0){
+            departmentHierarchy.added(record.getDepartmentId(), record.getParentId());
+        }
+        departmentTreeCache.invalidate();
+        return rows;
     }
 
 
@@ -63,8 +73,18 @@ public class DepartmentServiceImpl implements DepartmentService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int updateByPrimaryKey(Department record) {
-        return departmentMapper.updateByPrimaryKey(record);
+        // 修改父部门时先移动层级, 会形成环时直接拒绝
+        if(record.getParentId() != null){
+            Department current = departmentMapper.selectByPrimaryKey(record.getDepartmentId());
+            if(current != null && !record.getParentId().equals(current.getParentId())){
+                departmentHierarchy.moved(record.getDepartmentId(), record.getParentId());
+            }
+        }
+        int rows = departmentMapper.updateByPrimaryKey(record);
+        departmentTreeCache.invalidate();
+        return rows;
     }
 
     @Override
@@ -73,13 +93,23 @@ public class DepartmentServiceImpl implements DepartmentService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int updateBatchSelective(List<Department> list) {
-        return departmentMapper.updateBatchSelective(list);
+        int rows = departmentMapper.updateBatchSelective(list);
+        if(list.stream().anyMatch(department -> department.getParentId() != null)){
+            departmentHierarchy.rebuild();
+        }
+        departmentTreeCache.invalidate();
+        return rows;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int batchInsert(List<Department> list) {
-        return departmentMapper.batchInsert(list);
+        int rows = departmentMapper.batchInsert(list);
+        departmentHierarchy.rebuild();
+        departmentTreeCache.invalidate();
+        return rows;
     }
 
 
@@ -104,25 +134,12 @@ public class DepartmentServiceImpl implements DepartmentService {
 
 
     /**
-     * 查询部门树
+     * 查询部门树, 部门变更前返回同一份缓存快照
      * @return 部门树
      */
-    public List<Map<String, Object>> getDepartmentTree() {
-        List<Department> allDepartments = departmentMapper.selectAll();
-        Map<Long, Department> departmentMap = allDepartments.stream()
-                .collect(Collectors.toMap(Department::getDepartmentId, department -> department));
-        List<Map<String, Object>> tree = new ArrayList<>();
-        for (Department department : allDepartments) {
-            if (department.getParentId() == null || departmentMap.get(department.getParentId()) == null) {
-                Map<String, Object> node = new HashMap<>();
-                node.put("id", department.getDepartmentId());
-                node.put("label", department.getDepartmentName());
-                node.put("icon", department.getIconClass());
-                node.put("children", getChildren(department.getDepartmentId(), allDepartments));
-                tree.add(node);
-            }
-        }
-        return tree;
+    @Override
+    public List<DepartmentTreeNodeVO> getDepartmentTree() {
+        return departmentTreeCache.tree();
     }
 
     @Override
@@ -133,23 +150,28 @@ public class DepartmentServiceImpl implements DepartmentService {
 
     @Override
     public DepartmentStatsVO getDepartmentStats(Long departmentId) {
+        return getDepartmentStats(departmentId, false);
+    }
+
+    @Override
+    public DepartmentStatsVO getDepartmentStats(Long departmentId, boolean includeSubDepartments) {
         if(departmentId == null) {
             throw new BusinessException(CodeEnum.PARAM_ERROR, "部门ID不能为空");
         }
 
-        // 获取各状态工单数量
-        Integer pendingCount = ticketMapper.countByDepartmentAndStatus(
-                departmentId, TicketStatus.PENDING.getValue());
-        Integer processingCount = ticketMapper.countByDepartmentAndStatus(
-                departmentId, TicketStatus.PROCESSING.getValue());
-        Integer completedCount = ticketMapper.countByDepartmentAndStatus(
-                departmentId, TicketStatus.COMPLETED.getValue());
+        // 获取各状态工单数量, 读统计汇总表
+        Map<TicketStatus, Long> counts = includeSubDepartments
+                ? ticketStatsRollup.countByStatusInSubtree(departmentId)
+                : ticketStatsRollup.countByStatus(departmentId, null, null);
+        Integer pendingCount = counts.get(TicketStatus.PENDING).intValue();
+        Integer processingCount = counts.get(TicketStatus.PROCESSING).intValue();
+        Integer completedCount = counts.get(TicketStatus.COMPLETED).intValue();
 
         // 计算平均满意度
-        Double avgSatisfaction = ticketMapper.calculateDepartmentAvgSatisfaction(departmentId);
+        Double avgSatisfaction = ticketMapper.calculateDepartmentAvgSatisfaction(departmentId, includeSubDepartments);
 
         // 获取趋势数据
-        List<Map<String, Object>> rawTrends = ticketMapper.selectDepartmentTicketTrends(departmentId);
+        List<Map<String, Object>> rawTrends = ticketMapper.selectDepartmentTicketTrends(departmentId, includeSubDepartments);
         Map<String, Double> trends = this.processTrends(rawTrends);
 
         return DepartmentStatsVO.builder()
@@ -234,7 +256,9 @@ public class DepartmentServiceImpl implements DepartmentService {
             log.error(CodeEnum.DEPARTMENT_IS_NOT_EXIST.getMsg());
             return CodeEnum.DEPARTMENT_IS_NOT_EXIST.getCode();
         }
-        return departmentMapper.deleteByPrimaryKey(departmentId);
+        int rows = departmentMapper.deleteByPrimaryKey(departmentId);
+        departmentTreeCache.invalidate();
+        return rows;
     }
 
     @Override
@@ -244,28 +268,6 @@ public class DepartmentServiceImpl implements DepartmentService {
 
 
 
-    /**
-     * 递归查询子部门
-     * 这个我实在优化不明白
-     * @param parentId 父部门ID
-     * @param departments 部门列表
-     * @return 子部门列表
-     */
-    private List<Map<String, Object>> getChildren(Long parentId, List<Department> departments) {
-        List<Map<String, Object>> children = new ArrayList<>();
-        for (Department department : departments) {
-            if (parentId.equals(department.getParentId())) {
-                Map<String, Object> childNode = new HashMap<>();
-                childNode.put("id", department.getDepartmentId());
-                childNode.put("label", department.getDepartmentName());
-                childNode.put("icon", department.getIconClass());
-                childNode.put("children", getChildren(department.getDepartmentId(), departments));
-                children.add(childNode);
-            }
-        }
-        return children;
-    }
-
     //    /**
 //      * 已废弃，不知道什么地方逻辑有问题
 //     * 查询部门树
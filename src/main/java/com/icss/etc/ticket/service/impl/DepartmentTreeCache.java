@@ -0,0 +1,114 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.Department;
+import com.icss.etc.ticket.entity.vo.DepartmentTreeNodeVO;
+import com.icss.etc.ticket.mapper.DepartmentMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code DepartmentTreeCache}
+ * 部门树缓存
+ * 按 父部门 -> 子部门 索引一次遍历构建部门树, 结果为不可修改的快照, 所有请求共享;
+ * 部门变更后调用 {@link #invalidate()}, 下次读取时重新构建
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class DepartmentTreeCache {
+
+    private final DepartmentMapper departmentMapper;
+
+    /** 部门数据版本, 每次变更加一 */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 按某个版本的部门数据构建的部门树
+     */
+    private record Snapshot(long version, List<DepartmentTreeNodeVO> tree) {
+    }
+
+    public DepartmentTreeCache(DepartmentMapper departmentMapper) {
+        this.departmentMapper = departmentMapper;
+    }
+
+    /**
+     * 部门树
+     * @return 根部门列表, 不可修改
+     */
+    public List<DepartmentTreeNodeVO> tree() {
+        Snapshot current = snapshot;
+        long currentVersion = version.get();
+        if (current != null && current.version() == currentVersion) {
+            return current.tree();
+        }
+        // 构建期间部门又有变更时, 这份快照的版本已过期, 下次读取会再次构建
+        List<DepartmentTreeNodeVO> tree = build(departmentMapper.selectAll());
+        snapshot = new Snapshot(currentVersion, tree);
+        return tree;
+    }
+
+    /**
+     * 部门变更后调用, 在事务中时提交后生效
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 一次遍历建立 父部门 -> 子部门 索引, 再从根部门向下构建; 父部门不存在的部门作为根部门
+     * @param departments 部门列表, 子部门按列表顺序排列
+     */
+    static List<DepartmentTreeNodeVO> build(List<Department> departments) {
+        Set<Long> ids = new HashSet<>();
+        for (Department department : departments) {
+            ids.add(department.getDepartmentId());
+        }
+        Map<Long, List<Department>> childrenIndex = new HashMap<>();
+        List<Department> roots = new ArrayList<>();
+        for (Department department : departments) {
+            Long parentId = department.getParentId();
+            if (parentId == null || !ids.contains(parentId)) {
+                roots.add(department);
+            } else {
+                childrenIndex.computeIfAbsent(parentId, id -> new ArrayList<>()).add(department);
+            }
+        }
+
+        List<DepartmentTreeNodeVO> tree = new ArrayList<>(roots.size());
+        for (Department root : roots) {
+            tree.add(toNode(root, childrenIndex));
+        }
+        log.debug("构建部门树: {} 个部门, {} 个根部门", departments.size(), roots.size());
+        return List.copyOf(tree);
+    }
+
+    private static DepartmentTreeNodeVO toNode(Department department, Map<Long, List<Department>> childrenIndex) {
+        List<Department> children = childrenIndex.getOrDefault(department.getDepartmentId(), List.of());
+        List<DepartmentTreeNodeVO> nodes = new ArrayList<>(children.size());
+        for (Department child : children) {
+            nodes.add(toNode(child, childrenIndex));
+        }
+        return new DepartmentTreeNodeVO(department.getDepartmentId(), department.getDepartmentName(),
+                department.getIconClass(), List.copyOf(nodes));
+    }
+}
@@ -1,25 +1,37 @@
 package com.icss.etc.ticket.service.impl;
 
+import com.icss.etc.ticket.entity.Attachment;
 import com.icss.etc.ticket.enums.CodeEnum;
 import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.mapper.AttachmentMapper;
 import com.icss.etc.ticket.service.FileService;
+import com.icss.etc.ticket.util.FileTypeSniffer;
 import com.icss.etc.ticket.util.PropertiesUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
 
 /**
  * {@code FileServiceImpl}
+ * 上传时先按文件头识别实际类型并校验, 再在有界I/O线程池中并行写入 {@link AttachmentStore}
  *
  * @author SevenThRe
  * @version 1.0
@@ -32,7 +44,18 @@ public class FileServiceImpl implements FileService {
     @Autowired
     private PropertiesUtil propertiesUtil;
 
+    @Autowired
+    private AttachmentStore attachmentStore;
+
+    @Autowired
+    private AttachmentMapper attachmentMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
+    /** 并行写入文件的线程数 */
+    @Value("${upload.ioThreads:4}")
+    private int ioThreads;
 
     private String uploadPath;
 
@@ -40,6 +63,13 @@ public class FileServiceImpl implements FileService {
 
     private long maxFileSize;
 
+    private ThreadPoolExecutor ioExecutor;
+
+    private Timer uploadTimer;
+    private DistributionSummary throughput;
+    private Counter uploadedBytes;
+    private Counter deduplicated;
+
 
     @PostConstruct
     public void init() {
@@ -49,41 +79,97 @@ public class FileServiceImpl implements FileService {
         log.info("File service initialized with upload path: {}", uploadPath);
         log.info("File service initialized with allowed types: {}", allowedTypes);
         log.info("File service initialized with max file size: {}MB", maxFileSize);
-    }
 
+        // 队列满时由请求线程自己写入, 形成背压
+        this.ioExecutor = new ThreadPoolExecutor(ioThreads, ioThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ioThreads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "attachment-io");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
 
-    @Override
-    public String uploadFile(MultipartFile file, Long ticketId) {
-        try {
-            // 1. 验证文件
-            validateFile(file);
-
-            // 2. 生成文件名
-            String fileName = generateFileName(file, ticketId);
+        this.uploadTimer = Timer.builder("attachment.upload.duration")
+                .description("单个附件写入耗时")
+                .register(meterRegistry);
+        this.throughput = DistributionSummary.builder("attachment.upload.throughput")
+                .description("单个附件写入吞吐量")
+                .baseUnit("bytes/s")
+                .register(meterRegistry);
+        this.uploadedBytes = Counter.builder("attachment.upload.bytes").baseUnit("bytes").register(meterRegistry);
+        this.deduplicated = Counter.builder("attachment.upload.deduplicated").register(meterRegistry);
+    }
 
-            // 3. 保存文件
-            File dest = new File(uploadPath + fileName);
-            file.transferTo(dest);
+    @PreDestroy
+    public void shutdown() {
+        ioExecutor.shutdown();
+    }
 
-            // 4. 返回访问URL
-            return "/api/files/" + fileName;
-        } catch (IOException e) {
-            log.error("文件上传失败:", e);
-            throw new BusinessException(CodeEnum.INTERNAL_ERROR);
+    /**
+     * 已校验并写入的上传文件
+     */
+    private record StoredUpload(MultipartFile file, AttachmentStore.Blob blob) {
+        String fileName() {
+            return blob.hash() + extensionOf(file.getOriginalFilename());
         }
     }
 
+    @Override
+    public String uploadFile(MultipartFile file, Long ticketId) {
+        validateFile(file);
+        return "/api/files/" + store(file).fileName();
+    }
+
     @Override
     public List<String> uploadFiles(MultipartFile[] files, Long ticketId) {
-        return Arrays.stream(files)
-                .map(file -> uploadFile(file, ticketId))
-                .collect(Collectors.toList());
+        return storeAll(files).stream()
+                .map(upload -> "/api/files/" + upload.fileName())
+                .toList();
+    }
+
+    @Override
+    public List<Attachment> uploadAttachments(MultipartFile[] files, Long ticketId, Long userId) {
+        List<StoredUpload> uploads = storeAll(files);
+        if (uploads.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Attachment> attachments = new ArrayList<>(uploads.size());
+        for (StoredUpload upload : uploads) {
+            attachments.add(Attachment.builder()
+                    .ticketId(ticketId)
+                    .fileName(upload.file().getOriginalFilename())
+                    .filePath(upload.fileName())
+                    .fileSize(upload.blob().size())
+                    .isDeleted(0)
+                    .createBy(userId)
+                    .createTime(now)
+                    .build());
+        }
+        try {
+            // 一条多行INSERT写入全部附件记录
+            if (attachmentMapper.batchInsert(attachments) != attachments.size()) {
+                throw new BusinessException(CodeEnum.SAVE_FAILED, "保存附件记录失败");
+            }
+        } catch (RuntimeException e) {
+            release(uploads);
+            throw e;
+        }
+        return attachments;
     }
 
     @Override
     public void deleteFile(String fileUrl) {
         try {
             String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
+            String hash = attachmentStore.hashOf(fileName);
+            if (hash != null) {
+                // 按内容保存的文件, 最后一个引用释放时才删除
+                attachmentStore.release(hash);
+                return;
+            }
             File file = new File(uploadPath + fileName);
             if (file.exists()) {
                 file.delete();
@@ -94,24 +180,122 @@ public class FileServiceImpl implements FileService {
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deleteAttachment(Long attachmentId) {
+        Attachment attachment = attachmentMapper.selectByPrimaryKey(attachmentId);
+        // 条件更新只有一个请求能成功, 只有它释放文件引用
+        if (attachment == null || attachmentMapper.softDelete(attachmentId) != 1) {
+            return false;
+        }
+        deleteFile(attachment.getFilePath());
+        return true;
+    }
+
+    /**
+     * 全部校验通过后并行写入, 任一文件失败时释放已写入的文件
+     */
+    private List<StoredUpload> storeAll(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return List.of();
+        }
+        for (MultipartFile file : files) {
+            validateFile(file);
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<StoredUpload>> futures = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> store(file), ioExecutor));
+        }
+
+        List<StoredUpload> uploads = new ArrayList<>(files.length);
+        RuntimeException failure = null;
+        for (CompletableFuture<StoredUpload> future : futures) {
+            try {
+                uploads.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+        if (failure != null) {
+            release(uploads);
+            throw failure;
+        }
+
+        if (log.isDebugEnabled()) {
+            long bytes = uploads.stream().mapToLong(upload -> upload.blob().size()).sum();
+            long nanos = System.nanoTime() - start;
+            log.debug("并行写入附件 {} 个, 共 {} 字节, 耗时 {} ms", uploads.size(), bytes,
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+        return uploads;
+    }
+
+    private StoredUpload store(MultipartFile file) {
+        long start = System.nanoTime();
+        AttachmentStore.Blob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = attachmentStore.store(in);
+        } catch (IOException e) {
+            log.error("文件上传失败:", e);
+            throw new BusinessException(CodeEnum.INTERNAL_ERROR);
+        }
+        long nanos = System.nanoTime() - start;
+
+        uploadTimer.record(nanos, TimeUnit.NANOSECONDS);
+        uploadedBytes.increment(blob.size());
+        if (nanos > 0) {
+            throughput.record(blob.size() * 1e9 / nanos);
+        }
+        if (!blob.created()) {
+            deduplicated.increment();
+        }
+        return new StoredUpload(file, blob);
+    }
+
+    private void release(List<StoredUpload> uploads) {
+        for (StoredUpload upload : uploads) {
+            try {
+                attachmentStore.release(upload.blob().hash());
+            } catch (RuntimeException e) {
+                log.error("释放附件失败: {}", upload.blob().hash(), e);
+            }
+        }
+    }
+
     private void validateFile(MultipartFile file) {
         // 验证文件大小
         if (file.getSize() > maxFileSize * 1024 * 1024) {
             throw new BusinessException(CodeEnum.BAD_REQUEST, "文件大小超过限制");
         }
 
-        // 验证文件类型
-        String contentType = file.getContentType();
-        if (!allowedTypes.contains(contentType)) {
+        // 按文件头识别实际类型, 再验证是否允许
+        byte[] head = new byte[FileTypeSniffer.HEAD_SIZE];
+        int length;
+        try (InputStream in = file.getInputStream()) {
+            length = in.readNBytes(head, 0, head.length);
+        } catch (IOException e) {
+            log.error("读取上传文件失败:", e);
+            throw new BusinessException(CodeEnum.INTERNAL_ERROR);
+        }
+        String contentType = FileTypeSniffer.detect(head, length, file.getContentType());
+        if (contentType == null || !allowedTypes.contains(contentType)) {
+            log.warn("拒绝上传 {}: 声明类型 {}, 识别类型 {}", file.getOriginalFilename(), file.getContentType(), contentType);
             throw new BusinessException(CodeEnum.BAD_REQUEST, "不支持的文件类型");
         }
     }
 
-    private String generateFileName(MultipartFile file, Long ticketId) {
-        String originalName = file.getOriginalFilename();
+    /**
+     * 原文件名的扩展名(含点), 没有或不合法时返回空串
+     */
+    private static String extensionOf(String originalName) {
+        if (originalName == null || originalName.lastIndexOf(".") < 0) {
+            return "";
+        }
         String extension = originalName.substring(originalName.lastIndexOf("."));
-        return String.format("%d_%s%s", ticketId,
-                UUID.randomUUID().toString().replaceAll("-", ""),
-                extension);
+        return extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension : "";
     }
 }
@@ -0,0 +1,335 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.dto.ticket.TicketCursor;
+import com.icss.etc.ticket.entity.dto.ticket.TicketQueryDTO;
+import com.icss.etc.ticket.enums.TicketStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * {@code IndexAdvisor}
+ * 索引检查
+ * 对各 Mapper 的全部查询语句执行 EXPLAIN, 报告全表扫描(type=ALL)和全索引扫描(type=index)。
+ * 样例参数按 Mapper 方法的参数类型生成, 高频查询在 {@link #overrides()} 中指定更接近实际的参数(如非空游标);
+ * 带 ORDER BY ... LIMIT 且无需排序的全索引扫描按索引顺序读到 LIMIT 行即停止, 不视为全扫描。
+ * 默认关闭, 以 {@code --index.advisor.enabled=true} 启动时在启动完成后执行一次;
+ * 同时指定 {@code --index.advisor.failOnFullScan=true} 时发现问题即启动失败, 可用于发布前检查。
+ * 执行计划与数据量有关, 应在数据量接近生产的库上运行
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class IndexAdvisor {
+
+    private static final String TICKET_MAPPER = "com.icss.etc.ticket.mapper.TicketMapper.";
+    private static final String DASHBOARD_MAPPER = "com.icss.etc.ticket.mapper.DashboardMapper.";
+
+    /** 视为全扫描的访问类型 */
+    private static final Set<String> FULL_SCAN_TYPES = Set.of("ALL", "index");
+
+    /** 按排序取前N行的语句 */
+    private static final Pattern ORDERED_LIMIT =
+            Pattern.compile("\\bORDER\\s+BY\\b.*\\bLIMIT\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * 检查结果中的一行执行计划
+     *
+     * @param statementId 语句ID
+     * @param table       表名或别名
+     * @param type        访问类型
+     * @param key         使用的索引
+     * @param rows        预计扫描行数
+     * @param extra       Extra 列
+     */
+    public record Finding(String statementId, String table, String type, String key, Long rows, String extra) {
+    }
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final boolean failOnFullScan;
+
+    public IndexAdvisor(SqlSessionFactory sqlSessionFactory, DataSource dataSource,
+                        @Value("${index.advisor.enabled:false}") boolean enabled,
+                        @Value("${index.advisor.failOnFullScan:false}") boolean failOnFullScan) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.failOnFullScan = failOnFullScan;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        List<Finding> findings;
+        try {
+            findings = advise();
+        } catch (SQLException e) {
+            log.error("索引检查失败:", e);
+            return;
+        }
+        if (findings.isEmpty()) {
+            log.info("索引检查完成: 未发现全扫描");
+            return;
+        }
+        for (Finding finding : findings) {
+            log.warn("全扫描: {} 表 {} type={} key={} rows={} {}", finding.statementId(), finding.table(),
+                    finding.type(), finding.key(), finding.rows(), finding.extra());
+        }
+        if (failOnFullScan) {
+            throw new IllegalStateException("索引检查发现 " + findings.size() + " 处全扫描");
+        }
+    }
+
+    /**
+     * 对所有查询语句执行 EXPLAIN; 无法生成样例参数或 EXPLAIN 失败的语句记录日志后跳过
+     *
+     * @return 全扫描的执行计划行
+     */
+    public List<Finding> advise() throws SQLException {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        Map<String, Method> methods = mapperMethods(configuration);
+        Map<String, List<Map<String, Object>>> overrides = overrides();
+        List<Finding> findings = new ArrayList<>();
+        int checked = 0;
+        int skipped = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            for (MappedStatement statement : selectStatements(configuration)) {
+                for (Map<String, Object> override : overrides.getOrDefault(statement.getId(), List.of(Map.of()))) {
+                    Object parameter;
+                    BoundSql boundSql;
+                    try {
+                        parameter = parameter(configuration, methods.get(statement.getId()), override);
+                        boundSql = statement.getBoundSql(parameter);
+                    } catch (RuntimeException e) {
+                        log.warn("索引检查跳过 {}: 无法生成样例参数, {}", statement.getId(), e.getMessage());
+                        skipped++;
+                        continue;
+                    }
+                    try {
+                        explain(connection, configuration, statement, parameter, boundSql, findings);
+                        checked++;
+                    } catch (SQLException e) {
+                        log.warn("索引检查跳过 {}: {}", statement.getId(), e.getMessage());
+                        skipped++;
+                    }
+                }
+            }
+        }
+        log.info("索引检查: 已检查 {} 条, 跳过 {} 条", checked, skipped);
+        return findings;
+    }
+
+    private void explain(Connection connection, Configuration configuration, MappedStatement statement,
+                         Object parameter, BoundSql boundSql, List<Finding> findings) throws SQLException {
+        boolean orderedLimit = ORDERED_LIMIT.matcher(boundSql.getSql()).find();
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            configuration.newParameterHandler(statement, parameter, boundSql).setParameters(explain);
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    String extra = rs.getString("Extra");
+                    // 派生表/合并结果本身没有索引
+                    if (table == null || table.startsWith("<") || !FULL_SCAN_TYPES.contains(type)) {
+                        continue;
+                    }
+                    // 按索引顺序读取, 读到 LIMIT 行即停止
+                    if ("index".equals(type) && orderedLimit && (extra == null || !extra.contains("filesort"))) {
+                        continue;
+                    }
+                    long rows = rs.getLong("rows");
+                    findings.add(new Finding(statement.getId(), table, type, rs.getString("key"),
+                            rs.wasNull() ? null : rows, extra));
+                }
+            }
+        }
+    }
+
+    /**
+     * 全部查询语句, 按ID排序
+     */
+    private static Collection<MappedStatement> selectStatements(Configuration configuration) {
+        // 同一语句会以完整ID和简短ID各登记一次
+        Map<String, MappedStatement> statements = new TreeMap<>();
+        for (Object value : configuration.getMappedStatements()) {
+            if (value instanceof MappedStatement statement
+                    && statement.getSqlCommandType() == SqlCommandType.SELECT
+                    && !statement.getId().contains("!")) {
+                statements.put(statement.getId(), statement);
+            }
+        }
+        return statements.values();
+    }
+
+    /**
+     * 语句ID -> Mapper 方法
+     */
+    private static Map<String, Method> mapperMethods(Configuration configuration) {
+        Map<String, Method> methods = new HashMap<>();
+        for (Class<?> mapper : configuration.getMapperRegistry().getMappers()) {
+            for (Method method : mapper.getMethods()) {
+                if (!method.isDefault() && !method.isBridge()) {
+                    methods.putIfAbsent(mapper.getName() + "." + method.getName(), method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * 按方法参数类型生成样例参数, 再以 override 覆盖其中的命名参数
+     */
+    private static Object parameter(Configuration configuration, Method method, Map<String, Object> override) {
+        Object parameter = null;
+        if (method != null) {
+            Object[] args = new Object[method.getParameterCount()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = sample(method.getParameterTypes()[i], method.getGenericParameterTypes()[i]);
+            }
+            parameter = new ParamNameResolver(configuration, method).getNamedParams(args);
+        }
+        if (override.isEmpty()) {
+            return parameter;
+        }
+        Map<String, Object> params = new HashMap<>();
+        if (parameter instanceof Map<?, ?> named) {
+            named.forEach((key, value) -> params.put((String) key, value));
+        }
+        params.putAll(override);
+        return params;
+    }
+
+    /**
+     * 参数类型对应的样例值; 查询条件对象使用空对象, 只保留必需的条件
+     */
+    private static Object sample(Class<?> type, Type genericType) {
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return false;
+        }
+        if (type == String.class) {
+            return "1";
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type == Date.class) {
+            return new Date();
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> element = genericType instanceof ParameterizedType parameterized
+                    && parameterized.getActualTypeArguments()[0] instanceof Class<?> c ? c : Long.class;
+            Object value = sample(element, element);
+            List<Object> values = value == null ? new ArrayList<>() : new ArrayList<>(List.of(value));
+            return Set.class.isAssignableFrom(type) ? new HashSet<>(values) : values;
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return new HashMap<>();
+        }
+        if (type.isPrimitive() || type.isArray() || type.isInterface()) {
+            return null;
+        }
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 语句ID -> 样例参数, 每组参数执行一次 EXPLAIN; 覆盖工单表的高频查询路径
+     */
+    private static Map<String, List<Map<String, Object>>> overrides() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, List<Map<String, Object>>> overrides = new LinkedHashMap<>();
+
+        // 处理人 + 状态
+        TicketQueryDTO todo = new TicketQueryDTO();
+        todo.setProcessorId(1L);
+        overrides.put(TICKET_MAPPER + "selectTodoList", List.of(params("queryDTO", todo)));
+        overrides.put(TICKET_MAPPER + "selectTodoListByCursor", List.of(
+                params("queryDTO", todo, "cursor", null, "limit", 20),
+                params("queryDTO", todo, "cursor", new TicketCursor(0, 3, now.minusDays(30), 1L), "limit", 20)));
+        overrides.put(TICKET_MAPPER + "countByStatus", List.of(params("userId", 1L)));
+        overrides.put(TICKET_MAPPER + "countCrrentWorkload", List.of(params("userId", 1L, "workloadFilter", null)));
+        overrides.put(TICKET_MAPPER + "calculateAvgProcessTime", List.of(params("userId", 1L)));
+        overrides.put(TICKET_MAPPER + "selectPersonalStatistics", List.of(params("userId", 1L)));
+        TicketQueryDTO processing = new TicketQueryDTO();
+        processing.setProcessorId(1L);
+        processing.setStatus(TicketStatus.PROCESSING);
+        overrides.put(TICKET_MAPPER + "countTickets", List.of(params("query", processing)));
+
+        // 创建人 + 状态
+        overrides.put(TICKET_MAPPER + "countUserTickets", List.of(params("userId", 1L)));
+        overrides.put(TICKET_MAPPER + "getMonthlyStatistics", List.of(params("userId", 1L)));
+        TicketQueryDTO mine = new TicketQueryDTO();
+        mine.setUserId(1L);
+        overrides.put(TICKET_MAPPER + "selectTicketList", List.of(params("query", mine)));
+
+        // 全部工单按列表顺序分页, 首页与翻页
+        overrides.put(TICKET_MAPPER + "selectTicketListByCursor", List.of(
+                params("query", new TicketQueryDTO(), "cursor", null, "limit", 20),
+                params("query", new TicketQueryDTO(), "cursor", new TicketCursor(1, 3, now.minusDays(30), 1L),
+                        "limit", 20)));
+        overrides.put(TICKET_MAPPER + "getTicketListVOByCursor", List.of(
+                params("query", todo, "cursor", null, "limit", 20),
+                params("query", todo, "cursor", new TicketCursor(null, 3, now.minusDays(30), 1L), "limit", 20)));
+
+        // 分配对账按批锁定待分配工单
+        overrides.put(TICKET_MAPPER + "selectPendingTicketsForAssign",
+                List.of(params("ticketIds", null, "after", null, "limit", 200)));
+
+        // 创建时间范围
+        overrides.put(TICKET_MAPPER + "selectRecentTickets", List.of(params("days", 7)));
+        overrides.put(DASHBOARD_MAPPER + "getTicketTrendStats",
+                List.of(params("startDate", now.minusDays(30), "endDate", now)));
+        return overrides;
+    }
+
+    private static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+}
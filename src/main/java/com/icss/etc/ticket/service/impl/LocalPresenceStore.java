@@ -0,0 +1,84 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.service.PresenceStore;
+import com.icss.etc.ticket.util.LongLongHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@code LocalPresenceStore}
+ * 进程内在线状态存储, 单节点部署时使用
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "presence.store", havingValue = "local", matchIfMissing = true)
+public class LocalPresenceStore implements PresenceStore {
+
+    private final LongLongHashMap lastSeen = new LongLongHashMap(1024);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void touch(long userId, long seenAt) {
+        lock.writeLock().lock();
+        try {
+            lastSeen.put(userId, seenAt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            lastSeen.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long[] lastSeen(long[] userIds) {
+        long[] result = new long[userIds.length];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < userIds.length; i++) {
+                result[i] = lastSeen.get(userIds[i], NOT_ONLINE);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public int count(long after) {
+        int[] count = new int[1];
+        lock.readLock().lock();
+        try {
+            lastSeen.forEach((userId, seenAt) -> {
+                if (seenAt > after) {
+                    count[0]++;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count[0];
+    }
+
+    @Override
+    public int removeExpired(long deadline) {
+        lock.writeLock().lock();
+        try {
+            return lastSeen.removeIf((userId, seenAt) -> seenAt <= deadline);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
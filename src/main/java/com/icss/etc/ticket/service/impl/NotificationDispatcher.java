@@ -0,0 +1,203 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.config.WebSocketServer;
+import com.icss.etc.ticket.entity.Notification;
+import com.icss.etc.ticket.util.JsonUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code NotificationDispatcher}
+ * 通知推送分发器
+ * 通知在业务事务中入库, 提交后交给这里由单独线程通过 WebSocket 推送;
+ * 队列有界, 队列满时丢弃推送(通知已入库, 用户刷新通知列表仍可看到)。
+ * 用户不在线不重试; 发送失败(连接已断开)时按退避间隔重试, 等待期间该用户的后续通知排在其后, 保证同一用户按顺序收到
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    /** 单条通知最多推送次数 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** 首次重试的等待时间(毫秒), 之后每次翻倍, 留出客户端重连的时间 */
+    private static final long RETRY_BASE_DELAY = 1000L;
+
+    /**
+     * 等待重试的通知
+     *
+     * @param notification 通知
+     * @param attempts     已推送次数
+     */
+    private record Pending(Notification notification, int attempts) {
+    }
+
+    private final WebSocketServer webSocketServer;
+
+    /** 单线程推送, 保证同一用户的通知按顺序发送 */
+    private final ThreadPoolExecutor executor;
+
+    /** 到期后把重试交回推送线程 */
+    private final ScheduledExecutorService retryScheduler;
+
+    /** 正在重试的用户 -> 按顺序等待推送的通知, 队首为正在重试的通知; 只在推送线程中访问 */
+    private final Map<Long, Deque<Pending>> retrying = new HashMap<>();
+
+    private final Counter sent;
+    private final Counter offline;
+    private final Counter dropped;
+    private final Counter retried;
+    private final Counter failed;
+
+    public NotificationDispatcher(WebSocketServer webSocketServer, MeterRegistry meterRegistry,
+                                  @Value("${notification.dispatch.capacity:10000}") int capacity) {
+        this.webSocketServer = webSocketServer;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-dispatch");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("notification.dispatch.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        this.sent = Counter.builder("notification.push.sent").register(meterRegistry);
+        this.offline = Counter.builder("notification.push.offline").register(meterRegistry);
+        this.dropped = Counter.builder("notification.dispatch.dropped").register(meterRegistry);
+        this.retried = Counter.builder("notification.push.retried").register(meterRegistry);
+        this.failed = Counter.builder("notification.push.failed").register(meterRegistry);
+    }
+
+    /**
+     * 异步推送已入库的通知, 不阻塞调用线程
+     */
+    public void dispatch(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            try {
+                executor.execute(() -> push(notification));
+            } catch (RejectedExecutionException e) {
+                dropped.increment();
+                log.warn("通知推送队列已满, 丢弃推送, notificationId:{}, userId:{}",
+                        notification.getNotificationId(), notification.getUserId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("通知推送队列未清空, 剩余 {} 条", executor.getQueue().size());
+        }
+    }
+
+    private void push(Notification notification) {
+        Long userId = notification.getUserId();
+        Deque<Pending> waiting = retrying.get(userId);
+        if (waiting != null) {
+            waiting.addLast(new Pending(notification, 0));
+            return;
+        }
+        if (send(notification)) {
+            return;
+        }
+        waiting = new ArrayDeque<>();
+        waiting.addLast(new Pending(notification, 1));
+        retrying.put(userId, waiting);
+        scheduleRetry(userId, 1);
+    }
+
+    /**
+     * 重试到期, 按顺序推送该用户等待中的通知, 遇到发送失败时再次等待
+     */
+    private void retry(Long userId) {
+        Deque<Pending> waiting = retrying.get(userId);
+        while (!waiting.isEmpty()) {
+            Pending head = waiting.pollFirst();
+            if (send(head.notification())) {
+                continue;
+            }
+            int attempts = head.attempts() + 1;
+            if (attempts < MAX_ATTEMPTS) {
+                waiting.addFirst(new Pending(head.notification(), attempts));
+                scheduleRetry(userId, attempts);
+                return;
+            }
+            failed.increment();
+            log.error("推送通知失败, 已推送 {} 次, notificationId:{}, userId:{}",
+                    attempts, head.notification().getNotificationId(), userId);
+        }
+        retrying.remove(userId);
+    }
+
+    private void scheduleRetry(Long userId, int attempts) {
+        retried.increment();
+        long delay = RETRY_BASE_DELAY << (attempts - 1);
+        retryScheduler.schedule(() -> resubmitRetry(userId, delay), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void resubmitRetry(Long userId, long delay) {
+        try {
+            executor.execute(() -> retry(userId));
+        } catch (RejectedExecutionException e) {
+            // 队列满时稍后再交回, 不能丢弃, 否则该用户后续的通知会一直等待
+            if (!executor.isShutdown()) {
+                retryScheduler.schedule(() -> resubmitRetry(userId, delay), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 推送一条通知
+     *
+     * @return 是否已处理完成, 仅发送失败需要重试时返回false
+     */
+    private boolean send(Notification notification) {
+        String message;
+        try {
+            message = JsonUtil.toJson(notification);
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("推送通知失败, 无法序列化, notificationId:{}, userId:{}",
+                    notification.getNotificationId(), notification.getUserId(), e);
+            return true;
+        }
+        switch (webSocketServer.sendToUser(notification.getUserId(), message)) {
+            case SENT -> sent.increment();
+            case OFFLINE -> offline.increment();
+            case FAILED -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
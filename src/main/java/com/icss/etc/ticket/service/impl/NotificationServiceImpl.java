@@ -1,13 +1,11 @@
 package com.icss.etc.ticket.service.impl;
 
-import com.icss.etc.ticket.config.WebSocketServer;
 import com.icss.etc.ticket.entity.Notification;
 import com.icss.etc.ticket.enums.CodeEnum;
 import com.icss.etc.ticket.enums.NotifyType;
 import com.icss.etc.ticket.exceptions.BusinessException;
 import com.icss.etc.ticket.mapper.NotificationMapper;
 import com.icss.etc.ticket.service.NotificationService;
-import com.icss.etc.ticket.util.JsonUtil;
 import com.icss.etc.ticket.util.SecurityUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,7 +30,7 @@ public class NotificationServiceImpl implements NotificationService {
     private NotificationMapper notificationMapper;
 
     @Autowired
-    private WebSocketServer webSocketServer;
+    private TransactionWriteBuffer writeBuffer;
 
     /**
      * 创建工单分配通知
@@ -157,12 +155,15 @@ public class NotificationServiceImpl implements NotificationService {
         if(ticketId == null) {
             throw new BusinessException(CodeEnum.BAD_REQUEST, "工单ID不能为空");
         }
+        // 当前事务中暂存的通知也要一起删除
+        writeBuffer.flush();
         notificationMapper.deleteByTicketId(ticketId);
     }
 
 
     /**
      * 保存并推送通知
+     * 事务中调用时随事务提交批量入库, 提交后异步推送; 事务回滚时既不入库也不推送
      */
     private void saveAndPush(Notification notification) {
         if(notification == null) {
@@ -171,21 +172,6 @@ public class NotificationServiceImpl implements NotificationService {
         if(notification.getUserId() == null) {
             throw new BusinessException(CodeEnum.BAD_REQUEST, "通知用户ID不能为空");
         }
-
-        try {
-            // 1. 保存通知
-            int rows = notificationMapper.insert(notification);
-            if(rows == 0) {
-                throw new BusinessException(CodeEnum.BAD_REQUEST, "保存通知失败");
-            }
-
-            // 2. WebSocket推送
-            webSocketServer.sendToUser(notification.getUserId(), JsonUtil.toJson(notification));
-            log.info("推送通知成功, userId:{}, content:{}", notification.getUserId(), notification.getContent());
-        } catch (Exception e) {
-            log.error("推送通知失败, userId:{}, content:{}, error:{}",
-                    notification.getUserId(), notification.getContent(), e.getMessage());
-            throw new BusinessException(CodeEnum.INTERNAL_ERROR, "推送通知失败");
-        }
+        writeBuffer.addNotification(notification);
     }
-}
\ No newline at end of file
+}
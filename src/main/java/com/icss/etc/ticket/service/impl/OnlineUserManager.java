@@ -1,20 +1,22 @@
 package com.icss.etc.ticket.service.impl;
 
+import com.icss.etc.ticket.service.PresenceStore;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 /**
  * {@code OnlineUserManager}
+ * 在线用户管理, 登录/心跳只更新最后活跃时间, 过期条目由定时任务统一清理;
+ * 状态保存在 {@link PresenceStore} 中, 默认为进程内存储, 多节点部署时使用 Redis
  *
  * @author SevenThRe
  * @version 1.0
@@ -23,42 +25,32 @@ import java.util.concurrent.TimeUnit;
 @Component
 @Slf4j
 public class OnlineUserManager {
-    private static final String ONLINE_USER_KEY = "online_users";
-    private static final int EXPIRE_TIME = 30; // 30分钟过期
-//    依赖注入不上 换JAVA 原生内存管理
-//    @Autowired
-//    private RedisTemplate<String, Object> redisTemplate;
-    private final ConcurrentHashMap<Long, LocalDateTime> onlineUsers = new ConcurrentHashMap<>();
+    private static final long EXPIRE_TIME = TimeUnit.MINUTES.toMillis(30); // 30分钟过期
+
+    private final PresenceStore presenceStore;
+
+    public OnlineUserManager(PresenceStore presenceStore) {
+        this.presenceStore = presenceStore;
+    }
 
     /**
      * 用户上线
      */
     public void userOnline(Long userId) {
-        try {
-            onlineUsers.put(userId, LocalDateTime.now());
-            // 模拟过期机制
-            new Thread(() -> {
-                try {
-                    Thread.sleep(EXPIRE_TIME);
-                    onlineUsers.remove(userId);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
-        } catch (Exception e) {
-            log.error("记录用户在线状态失败, userId: {}", userId, e);
+        if (userId == null) {
+            return;
         }
+        presenceStore.touch(userId, System.currentTimeMillis());
     }
 
     /**
      * 用户下线
      */
     public void userOffline(Long userId) {
-        try {
-            onlineUsers.remove(userId);
-        } catch (Exception e) {
-            log.error("移除用户在线状态失败, userId: {}", userId, e);
+        if (userId == null) {
+            return;
         }
+        presenceStore.remove(userId);
     }
 
     /**
@@ -72,16 +64,11 @@ public class OnlineUserManager {
      * 检查用户是否在线
      */
     public boolean isUserOnline(Long userId) {
-        try {
-            LocalDateTime lastActiveTime = onlineUsers.get(userId);
-            if (lastActiveTime == null) {
-                return false;
-            }
-            return LocalDateTime.now().minusSeconds(EXPIRE_TIME / 1000).isBefore(lastActiveTime);
-        } catch (Exception e) {
-            log.error("检查用户在线状态失败, userId: {}", userId, e);
+        if (userId == null) {
             return false;
         }
+        long deadline = System.currentTimeMillis() - EXPIRE_TIME;
+        return presenceStore.lastSeen(new long[]{userId})[0] > deadline;
     }
 
     /**
@@ -90,10 +77,8 @@ public class OnlineUserManager {
     public Set<Long> getOnlineUsersByDepartment(Long departmentId, List<Long> departmentUserIds) {
         try {
             Set<Long> onlineUsers = new HashSet<>();
-            for (Long userId : departmentUserIds) {
-                if (isUserOnline(userId)) {
-                    onlineUsers.add(userId);
-                }
+            for (Long userId : filterOnline(departmentUserIds, Long::longValue)) {
+                onlineUsers.add(userId);
             }
             return onlineUsers;
         } catch (Exception e) {
@@ -101,4 +86,47 @@ public class OnlineUserManager {
             return Collections.emptySet();
         }
     }
+
+    /**
+     * 批量筛选在线用户, 对存储只做一次批量查询
+     * @param candidates 候选对象
+     * @param idOf       取用户ID
+     * @return 在线的候选对象, 保持原有顺序
+     */
+    public <T> List<T> filterOnline(List<T> candidates, ToLongFunction<T> idOf) {
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long[] userIds = new long[candidates.size()];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = idOf.applyAsLong(candidates.get(i));
+        }
+        long deadline = System.currentTimeMillis() - EXPIRE_TIME;
+        long[] lastSeen = presenceStore.lastSeen(userIds);
+        List<T> online = new ArrayList<>(candidates.size());
+        for (int i = 0; i < userIds.length; i++) {
+            if (lastSeen[i] > deadline) {
+                online.add(candidates.get(i));
+            }
+        }
+        return online;
+    }
+
+    /**
+     * 在线人数
+     */
+    public int getOnlineCount() {
+        return presenceStore.count(System.currentTimeMillis() - EXPIRE_TIME);
+    }
+
+    /**
+     * 每分钟清理一次超时未心跳的用户
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void sweepExpired() {
+        int removed = presenceStore.removeExpired(System.currentTimeMillis() - EXPIRE_TIME);
+        if (removed > 0) {
+            log.debug("清理过期在线用户 {} 个", removed);
+        }
+    }
 }
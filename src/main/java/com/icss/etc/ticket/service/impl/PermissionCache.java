@@ -0,0 +1,214 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.enums.Logical;
+import com.icss.etc.ticket.mapper.PermissionMapper;
+import com.icss.etc.ticket.util.PropertiesUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code PermissionCache}
+ * 用户权限编码与角色编码的进程内缓存
+ * 权限/角色编码统一映射为整数下标, 每个用户只保存两个BitSet;
+ * 容量与过期时间沿用系统配置中的 cache.maxSize / cache.expireTime / cache.expireTimeUnit
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class PermissionCache {
+
+    private final PermissionMapper permissionMapper;
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long expireMillis;
+
+    /** 编码 -> 下标, 只增不减, 规模受权限表与角色表大小限制 */
+    private final ConcurrentHashMap<String, Integer> codeIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /** userId -> 授权快照, 按访问顺序淘汰 */
+    private final LinkedHashMap<Long, Grants> grants;
+
+    /** 失效版本号, 加载期间发生失效时放弃写入缓存, 避免回填旧数据 */
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record Grants(BitSet permissions, BitSet roles, long expireAt) {
+    }
+
+    public PermissionCache(PermissionMapper permissionMapper, PropertiesUtil propertiesUtil,
+                           MeterRegistry meterRegistry) {
+        this.permissionMapper = permissionMapper;
+        this.enabled = Boolean.parseBoolean(propertiesUtil.getProperty("cache.enabled", "true"));
+        this.maxSize = Integer.parseInt(propertiesUtil.getProperty("cache.maxSize", "1000"));
+        TimeUnit unit = TimeUnit.valueOf(propertiesUtil.getProperty("cache.expireTimeUnit", "MINUTES"));
+        this.expireMillis = unit.toMillis(Long.parseLong(propertiesUtil.getProperty("cache.expireTime", "10")));
+        this.grants = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Grants> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        FunctionCounter.builder("permission.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("permission.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("permission.cache.size", this, PermissionCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 检查用户是否拥有权限
+     */
+    public boolean checkPermissions(Long userId, String[] permissions, Logical logical) {
+        return matches(getGrants(userId).permissions(), permissions, logical);
+    }
+
+    /**
+     * 检查用户是否拥有角色
+     */
+    public boolean checkRoles(Long userId, String[] roles, Logical logical) {
+        return matches(getGrants(userId).roles(), roles, logical);
+    }
+
+    /**
+     * 用户角色变更后调用, 事务中调用时提交后会再失效一次
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        afterCommit(() -> evict(userId));
+    }
+
+    /**
+     * 角色或角色权限变更后调用, 影响范围不确定时清空全部缓存
+     */
+    public void invalidateAll() {
+        evictAll();
+        afterCommit(this::evictAll);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (grants) {
+            return grants.size();
+        }
+    }
+
+    private Grants getGrants(Long userId) {
+        if (enabled) {
+            Grants cached;
+            synchronized (grants) {
+                cached = grants.get(userId);
+            }
+            if (cached != null && cached.expireAt() > System.currentTimeMillis()) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        long loadVersion = version.get();
+        Grants loaded = new Grants(
+                toBitSet(permissionMapper.selectUserPermissions(userId)),
+                toBitSet(permissionMapper.selectUserRoles(userId)),
+                System.currentTimeMillis() + expireMillis);
+        if (enabled) {
+            synchronized (grants) {
+                if (version.get() == loadVersion) {
+                    grants.put(userId, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private BitSet toBitSet(Set<String> codes) {
+        BitSet bits = new BitSet();
+        if (codes != null) {
+            for (String code : codes) {
+                if (code != null) {
+                    bits.set(codeIndex.computeIfAbsent(code, c -> nextIndex.getAndIncrement()));
+                }
+            }
+        }
+        return bits;
+    }
+
+    private boolean matches(BitSet owned, String[] required, Logical logical) {
+        if (logical == Logical.AND) {
+            for (String code : required) {
+                if (!contains(owned, code)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (String code : required) {
+            if (contains(owned, code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(BitSet owned, String code) {
+        // 从未出现过的编码不可能被任何用户拥有
+        Integer index = codeIndex.get(code);
+        return index != null && owned.get(index);
+    }
+
+    private void evict(Long userId) {
+        synchronized (grants) {
+            version.incrementAndGet();
+            grants.remove(userId);
+        }
+    }
+
+    private void evictAll() {
+        synchronized (grants) {
+            version.incrementAndGet();
+            grants.clear();
+        }
+        log.debug("权限缓存已清空");
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
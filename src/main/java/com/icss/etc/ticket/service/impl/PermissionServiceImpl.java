@@ -14,9 +14,7 @@ import org.apache.ibatis.annotations.Param;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 /**
  * @program: tickets-system
@@ -30,6 +28,8 @@ public class PermissionServiceImpl implements PermissionService {
     private PermissionMapper permissionMapper;
     @Autowired
     private RolePermissionMapper rolePermissionMapper;
+    @Autowired
+    private PermissionCache permissionCache;
 
 
     @Override
@@ -39,7 +39,9 @@ public class PermissionServiceImpl implements PermissionService {
 
     @Override
     public int updatePermission(Permission permission) {
-        return permissionMapper.updatePermission(permission);
+        int rows = permissionMapper.updatePermission(permission);
+        permissionCache.invalidateAll();
+        return rows;
     }
 
     @Override
@@ -49,7 +51,9 @@ public class PermissionServiceImpl implements PermissionService {
 
     @Override
     public int deletePermission(RPDTO rpdto) {
-        return rolePermissionMapper.delPermissionByRoleId(rpdto);
+        int rows = rolePermissionMapper.delPermissionByRoleId(rpdto);
+        permissionCache.invalidateAll();
+        return rows;
     }
 
     @Override
@@ -59,28 +63,18 @@ public class PermissionServiceImpl implements PermissionService {
 
     @Override
     public boolean checkPermissions(String[] permissions, Long userId, Logical logical) {
-        Set<String> userPermissions = permissionMapper.selectUserPermissions(userId);
-
-        if (logical == Logical.AND) {
-            return Arrays.stream(permissions).allMatch(userPermissions::contains);
-        } else {
-            return Arrays.stream(permissions).anyMatch(userPermissions::contains);
-        }
+        return permissionCache.checkPermissions(userId, permissions, logical);
     }
 
     @Override
     public boolean checkRoles(String[] roles, Long userId, Logical logical) {
-        Set<String> userRoles = permissionMapper.selectUserRoles(userId);
-
-        if (logical == Logical.AND) {
-            return Arrays.stream(roles).allMatch(userRoles::contains);
-        } else {
-            return Arrays.stream(roles).anyMatch(userRoles::contains);
-        }
+        return permissionCache.checkRoles(userId, roles, logical);
     }
 
     @Override
     public int addPermission(RolePermission permission) {
-       return permissionMapper.addPermission(permission);
+       int rows = permissionMapper.addPermission(permission);
+       permissionCache.invalidateAll();
+       return rows;
     }
 }
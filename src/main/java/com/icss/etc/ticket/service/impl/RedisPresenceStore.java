@@ -0,0 +1,238 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.service.PresenceStore;
+import com.icss.etc.ticket.util.LongLongHashMap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@code RedisPresenceStore}
+ * 基于 Redis 有序集合的在线状态存储, 多节点共享
+ * member 为 userId, score 为最后活跃时间(毫秒);
+ * 登录/心跳/登出先写入本地缓冲, 由定时任务合并后以一条 ZADD(GT) 与一条 ZREM 批量提交;
+ * 批量查询使用一条 ZMSCORE 完成 (需要 Redis 6.2+)
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "presence.store", havingValue = "redis")
+public class RedisPresenceStore implements PresenceStore {
+
+    /** 缓冲中的登出标记 */
+    private static final long REMOVED = NOT_ONLINE;
+
+    private final StringRedisTemplate redisTemplate;
+    private final byte[] key;
+
+    /** 尚未提交的 userId -> 最后活跃时间, 登出记为 {@link #REMOVED} */
+    private LongLongHashMap pending = new LongLongHashMap(256);
+    private final Object pendingLock = new Object();
+    /** 保证各批次按顺序提交 */
+    private final Object flushLock = new Object();
+
+    public RedisPresenceStore(StringRedisTemplate redisTemplate,
+                              @Value("${presence.redis.key:ticket:presence}") String key) {
+        this.redisTemplate = redisTemplate;
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void touch(long userId, long seenAt) {
+        synchronized (pendingLock) {
+            long buffered = pending.get(userId, REMOVED);
+            if (seenAt > buffered) {
+                pending.put(userId, seenAt);
+            }
+        }
+    }
+
+    @Override
+    public void remove(long userId) {
+        synchronized (pendingLock) {
+            pending.put(userId, REMOVED);
+        }
+    }
+
+    @Override
+    public long[] lastSeen(long[] userIds) {
+        long[] result = new long[userIds.length];
+        if (userIds.length == 0) {
+            return result;
+        }
+        byte[][] members = new byte[userIds.length][];
+        for (int i = 0; i < userIds.length; i++) {
+            members[i] = member(userIds[i]);
+        }
+        List<Double> scores = null;
+        try {
+            scores = redisTemplate.execute((RedisCallback<List<Double>>) connection ->
+                    connection.zSetCommands().zMScore(key, members));
+        } catch (Exception e) {
+            log.warn("查询Redis在线状态失败, 仅使用本节点数据", e);
+        }
+        synchronized (pendingLock) {
+            for (int i = 0; i < userIds.length; i++) {
+                Double score = scores == null ? null : scores.get(i);
+                long stored = score == null ? NOT_ONLINE : score.longValue();
+                if (pending.containsKey(userIds[i])) {
+                    long buffered = pending.get(userIds[i], REMOVED);
+                    result[i] = buffered == REMOVED ? NOT_ONLINE : Math.max(buffered, stored);
+                } else {
+                    result[i] = stored;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Redis 中的计数加上缓冲中尚未提交的心跳与登出:
+     * 与 ZCOUNT 在同一次流水线中用 ZMSCORE 查出缓冲用户已提交的时间, 按合并后的时间修正计数;
+     * 查询Redis失败时只统计本节点缓冲中的心跳
+     */
+    @Override
+    public int count(long after) {
+        long[] userIds;
+        long[] buffered;
+        synchronized (pendingLock) {
+            userIds = new long[pending.size()];
+            buffered = new long[pending.size()];
+            int[] index = {0};
+            pending.forEach((userId, seenAt) -> {
+                userIds[index[0]] = userId;
+                buffered[index[0]++] = seenAt;
+            });
+        }
+        byte[][] members = new byte[userIds.length][];
+        for (int i = 0; i < userIds.length; i++) {
+            members[i] = member(userIds[i]);
+        }
+
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zCount(key, after + 1, Double.POSITIVE_INFINITY);
+                if (members.length > 0) {
+                    connection.zSetCommands().zMScore(key, members);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("查询Redis在线人数失败, 仅使用本节点数据", e);
+            int buffer = 0;
+            for (long seenAt : buffered) {
+                if (seenAt != REMOVED && seenAt > after) {
+                    buffer++;
+                }
+            }
+            return buffer;
+        }
+        long count = results.get(0) == null ? 0 : (Long) results.get(0);
+        if (members.length > 0) {
+            @SuppressWarnings("unchecked")
+            List<Double> scores = (List<Double>) results.get(1);
+            for (int i = 0; i < userIds.length; i++) {
+                Double score = scores.get(i);
+                long stored = score == null ? NOT_ONLINE : score.longValue();
+                long merged = buffered[i] == REMOVED ? NOT_ONLINE : Math.max(buffered[i], stored);
+                if (stored > after) {
+                    count--;
+                }
+                if (merged > after) {
+                    count++;
+                }
+            }
+        }
+        return (int) count;
+    }
+
+    @Override
+    public int removeExpired(long deadline) {
+        Long removed = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zRemRangeByScore(key, Double.NEGATIVE_INFINITY, deadline));
+        return removed == null ? 0 : removed.intValue();
+    }
+
+    /**
+     * 提交缓冲中的心跳与登出, 一次流水线往返
+     */
+    @Scheduled(fixedDelayString = "${presence.redis.flushInterval:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            LongLongHashMap batch;
+            synchronized (pendingLock) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = new LongLongHashMap(Math.max(256, batch.size()));
+            }
+
+            Set<Tuple> touched = new HashSet<>();
+            List<byte[]> removed = new ArrayList<>();
+            batch.forEach((userId, seenAt) -> {
+                if (seenAt == REMOVED) {
+                    removed.add(member(userId));
+                } else {
+                    touched.add(new DefaultTuple(member(userId), (double) seenAt));
+                }
+            });
+
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    if (!touched.isEmpty()) {
+                        // GT: 其他节点写入了更晚的时间时不回退
+                        connection.zSetCommands().zAdd(key, touched, RedisZSetCommands.ZAddArgs.empty().gt());
+                    }
+                    if (!removed.isEmpty()) {
+                        connection.zSetCommands().zRem(key, removed.toArray(new byte[0][]));
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("提交在线状态到Redis失败, {} 条记录将在下次重试", batch.size(), e);
+                requeue(batch);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 提交失败时放回缓冲, 缓冲中已有更新的操作时以缓冲为准
+     */
+    private void requeue(LongLongHashMap batch) {
+        synchronized (pendingLock) {
+            batch.forEach((userId, seenAt) -> {
+                if (!pending.containsKey(userId)) {
+                    pending.put(userId, seenAt);
+                }
+            });
+        }
+    }
+
+    private static byte[] member(long userId) {
+        return Long.toString(userId).getBytes(StandardCharsets.UTF_8);
+    }
+}
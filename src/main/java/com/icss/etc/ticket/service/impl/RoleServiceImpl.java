@@ -24,6 +24,8 @@ import java.util.List;
 public class RoleServiceImpl implements RoleService {
     @Autowired
     private RoleMapper roleMapper;
+    @Autowired
+    private PermissionCache permissionCache;
 
     @Override
     public int insert(Role role) {
@@ -47,7 +49,9 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public int updateRole(Role role) {
-        return roleMapper.updateRole(role);
+        int rows = roleMapper.updateRole(role);
+        permissionCache.invalidateAll();
+        return rows;
     }
 
     @Override
@@ -57,7 +61,9 @@ public class RoleServiceImpl implements RoleService {
 
     @Override
     public int deleteByRoleId(Long roleId) {
-        return roleMapper.deleteByRoleId(roleId);
+        int rows = roleMapper.deleteByRoleId(roleId);
+        permissionCache.invalidateAll();
+        return rows;
 
     }
     @Override
@@ -0,0 +1,302 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.util.PropertiesUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@code ThumbnailCache}
+ * 图片附件缩略图
+ * 按需生成固定尺寸(长边 {@link #SIZES} 像素)的缩略图, 保存在 上传目录/.derivatives 下,
+ * 总大小超过上限时按最近访问时间淘汰, 最近 {@link #EVICT_GRACE_MILLIS} 毫秒内返回过的缩略图不淘汰(可能仍在发送)。缩略图以原文件内容(或旧文件的修改时间)为键, 内容不变则不会重新生成
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class ThumbnailCache {
+
+    /** 支持的缩略图尺寸(长边像素) */
+    public static final Set<Integer> SIZES = Set.of(128, 512);
+
+    private static final String DERIVATIVE_DIR = ".derivatives";
+
+    /** 返回后在此时间内不淘汰, 避免文件在发送前被删除 */
+    private static final long EVICT_GRACE_MILLIS = 60 * 1000L;
+
+    /** 同一缩略图只生成一次, 按键分段加锁 */
+    private static final int LOCK_STRIPES = 64;
+
+    private final PropertiesUtil propertiesUtil;
+    private final AttachmentStore attachmentStore;
+    private final long maxBytes;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * 缓存的缩略图
+     */
+    private static final class Entry {
+        private final long size;
+        private long accessedAt;
+
+        private Entry(long size, long accessedAt) {
+            this.size = size;
+            this.accessedAt = accessedAt;
+        }
+    }
+
+    /** 缩略图 -> 文件大小与最后访问时间, 按访问顺序排列, 最久未访问的在前 */
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ThumbnailCache(PropertiesUtil propertiesUtil, AttachmentStore attachmentStore, MeterRegistry meterRegistry,
+                          @Value("${preview.thumbnail.maxBytes:268435456}") long maxBytes) {
+        this.propertiesUtil = propertiesUtil;
+        this.attachmentStore = attachmentStore;
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.hits = Counter.builder("attachment.thumbnail.hit").register(meterRegistry);
+        this.misses = Counter.builder("attachment.thumbnail.miss").register(meterRegistry);
+    }
+
+    /**
+     * 载入已有的缩略图, 按修改时间作为初始访问顺序
+     */
+    @PostConstruct
+    public void load() {
+        Path dir = derivativeDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Map.Entry<Path, BasicFileAttributes>> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    files.add(Map.entry(path, attributes));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("载入缩略图缓存失败: {}", dir, e);
+            return;
+        }
+        files.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+        synchronized (entries) {
+            for (Map.Entry<Path, BasicFileAttributes> file : files) {
+                add(file.getKey(), file.getValue().size(), file.getValue().lastModifiedTime().toMillis());
+            }
+            evict(null);
+        }
+        log.info("缩略图缓存: {} 个文件, {} 字节", entries.size(), totalBytes);
+    }
+
+    /**
+     * 获取缩略图, 不存在时生成
+     *
+     * @param source   原文件
+     * @param fileName 原文件的存储文件名
+     * @param size     长边像素, 取值见 {@link #SIZES}
+     * @return 缩略图路径; 不是可识别的图片或原图不大于目标尺寸时返回null, 此时应直接使用原文件
+     */
+    public Path get(Path source, String fileName, int size) throws IOException {
+        if (!SIZES.contains(size)) {
+            throw new IllegalArgumentException("不支持的缩略图尺寸: " + size);
+        }
+        String key = keyOf(source, fileName) + "-" + size;
+        Path png = derivativeDir().resolve(String.valueOf(size)).resolve(key + ".png");
+        Path jpg = png.resolveSibling(key + ".jpg");
+
+        synchronized (locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            for (Path cached : List.of(jpg, png)) {
+                if (touch(cached)) {
+                    hits.increment();
+                    return cached;
+                }
+            }
+            misses.increment();
+            return generate(source, size, jpg, png);
+        }
+    }
+
+    /**
+     * 缩略图内容是否只由URL决定: 按内容保存的文件内容不会变化, 其缩略图可长期缓存;
+     * 旧文件可能被覆盖, 缩略图随之重新生成
+     *
+     * @param fileName 原文件的存储文件名
+     */
+    public boolean isImmutable(String fileName) {
+        return attachmentStore.hashOf(fileName) != null;
+    }
+
+    /**
+     * 缩略图的键: 按内容保存的文件用内容哈希, 旧文件用文件名与修改时间
+     */
+    private String keyOf(Path source, String fileName) throws IOException {
+        String hash = attachmentStore.hashOf(fileName);
+        if (hash != null) {
+            return hash;
+        }
+        String name = fileName.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name + "-" + Long.toHexString(Files.getLastModifiedTime(source).toMillis());
+    }
+
+    private Path generate(Path source, int size, Path jpg, Path png) throws IOException {
+        BufferedImage image = read(source, size);
+        if (image == null || Math.max(image.getWidth(), image.getHeight()) <= size) {
+            return null;
+        }
+
+        double scale = (double) size / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        boolean alpha = image.getColorModel().hasAlpha();
+
+        BufferedImage thumbnail = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        // 透明图片保存为PNG, 其余保存为JPEG; 先写临时文件再原子移动, 避免读到写了一半的文件
+        Path target = alpha ? png : jpg;
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "thumb-", ".part");
+        try {
+            if (!ImageIO.write(thumbnail, alpha ? "png" : "jpg", temp.toFile())) {
+                return null;
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        synchronized (entries) {
+            add(target, Files.size(target), System.currentTimeMillis());
+            // 单个缩略图超过上限时不保留, 直接使用原文件
+            if (!evict(target)) {
+                return null;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 读取图片, 原图远大于目标尺寸时按比例跳过像素读取, 减少解码内存; 原图不大于目标尺寸时返回null
+     */
+    private BufferedImage read(Path source, int size) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                if (longest <= size) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, longest / (size * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 命中时更新访问顺序
+     */
+    private boolean touch(Path path) {
+        synchronized (entries) {
+            Entry entry = entries.get(path);
+            if (entry != null) {
+                if (Files.exists(path)) {
+                    entry.accessedAt = System.currentTimeMillis();
+                    return true;
+                }
+                totalBytes -= entries.remove(path).size;
+            }
+            return false;
+        }
+    }
+
+    private void add(Path path, long size, long accessedAt) {
+        Entry previous = entries.put(path, new Entry(size, accessedAt));
+        totalBytes += size - (previous != null ? previous.size : 0L);
+    }
+
+    /**
+     * 超过上限时淘汰最久未访问的缩略图; 最近返回过的缩略图不淘汰, 此时允许暂时超过上限
+     *
+     * @param keep 刚生成、即将返回的缩略图, 可为null
+     * @return keep 是否保留, 单个缩略图超过上限时删除
+     */
+    private boolean evict(Path keep) {
+        long graceStart = System.currentTimeMillis() - EVICT_GRACE_MILLIS;
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            // 按访问顺序排列, 之后的缩略图访问时间更晚
+            if (eldest.getValue().accessedAt > graceStart) {
+                break;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue().size;
+            delete(eldest.getKey());
+        }
+        if (keep != null && entries.get(keep).size > maxBytes) {
+            totalBytes -= entries.remove(keep).size;
+            delete(keep);
+            return false;
+        }
+        return true;
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除缩略图失败: {}", path, e);
+        }
+    }
+
+    private Path derivativeDir() {
+        return Paths.get(propertiesUtil.getProperty("upload.path", "./uploads/"))
+                .toAbsolutePath().normalize().resolve(DERIVATIVE_DIR);
+    }
+}
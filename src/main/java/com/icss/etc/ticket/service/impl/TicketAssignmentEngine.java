@@ -0,0 +1,205 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.Ticket;
+import com.icss.etc.ticket.entity.TicketRecord;
+import com.icss.etc.ticket.entity.User;
+import com.icss.etc.ticket.entity.dto.ProcessorWorkloadDTO;
+import com.icss.etc.ticket.enums.OperationType;
+import com.icss.etc.ticket.enums.TicketEnum;
+import com.icss.etc.ticket.enums.TicketStatus;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.mapper.TicketMapper;
+import com.icss.etc.ticket.mapper.UserMapper;
+import com.icss.etc.ticket.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * {@code TicketAssignmentEngine}
+ * 工单自动分配引擎
+ * 按批锁定待分配工单, 一次性加载各部门在线处理人及其活跃工单数, 每个部门维护一个按工作量排序的小顶堆,
+ * 在内存中完成整批分配后分块批量写回, 分配记录与通知经 {@link TransactionWriteBuffer} 随事务提交批量写入
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class TicketAssignmentEngine {
+
+    /** 每条批量语句包含的工单数 */
+    private static final int BATCH_SIZE = 500;
+
+    private final TicketMapper ticketMapper;
+    private final TransactionWriteBuffer writeBuffer;
+    private final UserMapper userMapper;
+    private final NotificationService notificationService;
+    private final OnlineUserManager onlineUserManager;
+    private final TicketStatsRollup statsRollup;
+
+    public TicketAssignmentEngine(TicketMapper ticketMapper,
+                                  TransactionWriteBuffer writeBuffer,
+                                  UserMapper userMapper,
+                                  NotificationService notificationService,
+                                  OnlineUserManager onlineUserManager,
+                                  TicketStatsRollup statsRollup) {
+        this.ticketMapper = ticketMapper;
+        this.writeBuffer = writeBuffer;
+        this.userMapper = userMapper;
+        this.notificationService = notificationService;
+        this.onlineUserManager = onlineUserManager;
+        this.statsRollup = statsRollup;
+    }
+
+    /**
+     * 处理人的当前工作量, 作为堆元素使用
+     */
+    private static final class Workload {
+        final long processorId;
+        long activeCount;
+
+        Workload(long processorId, long activeCount) {
+            this.processorId = processorId;
+            this.activeCount = activeCount;
+        }
+    }
+
+    /** 工作量少的优先, 相同时按处理人ID, 保证结果稳定 */
+    private static final Comparator<Workload> LEAST_LOADED = Comparator
+            .<Workload>comparingLong(w -> w.activeCount)
+            .thenComparingLong(w -> w.processorId);
+
+    /**
+     * 一批待处理工单的分配结果
+     *
+     * @param claimed  本批锁定的工单数
+     * @param assigned 成功分配的工单数
+     * @param last     本批最后一个工单, 作为下一批的起点
+     */
+    public record BatchResult(int claimed, int assigned, Ticket last) {
+    }
+
+    /**
+     * 分配一批待处理工单, 每批单独提交, 锁只持有到本批结束
+     * @param after 上一批最后一个工单, 首批为null
+     * @param limit 本批最多锁定的工单数
+     * @return 本批分配结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public BatchResult assignPendingBatch(Ticket after, int limit) {
+        List<Ticket> pendingTickets = ticketMapper.selectPendingTicketsForAssign(null, after, limit);
+        if (pendingTickets.isEmpty()) {
+            return new BatchResult(0, 0, after);
+        }
+        int assigned = assign(pendingTickets);
+        return new BatchResult(pendingTickets.size(), assigned, pendingTickets.get(pendingTickets.size() - 1));
+    }
+
+    /**
+     * 分配指定工单, 已不是待处理状态的工单会被跳过
+     * @param ticketIds 工单ID
+     * @return 成功分配的工单数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int assignTickets(Collection<Long> ticketIds) {
+        if (ticketIds.isEmpty()) {
+            return 0;
+        }
+        return assign(ticketMapper.selectPendingTicketsForAssign(ticketIds, null, null));
+    }
+
+    private int assign(List<Ticket> pendingTickets) {
+        if (pendingTickets.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 各部门在线处理人 (一次查询 + 一次在线状态批量过滤)
+        Set<Long> departmentIds = new HashSet<>();
+        for (Ticket ticket : pendingTickets) {
+            departmentIds.add(ticket.getDepartmentId());
+        }
+        List<User> processors = onlineUserManager.filterOnline(
+                userMapper.selectProcessorsByDepartments(departmentIds), User::getUserId);
+
+        // 2. 处理人当前工作量 (一次分组查询)
+        Map<Long, Long> activeCounts = new HashMap<>();
+        if (!processors.isEmpty()) {
+            Set<Long> processorIds = new HashSet<>();
+            for (User processor : processors) {
+                processorIds.add(processor.getUserId());
+            }
+            for (ProcessorWorkloadDTO workload : ticketMapper.countActiveTicketsByProcessors(processorIds)) {
+                activeCounts.put(workload.processorId(), workload.activeCount());
+            }
+        }
+
+        // 3. 每个部门一个小顶堆
+        Map<Long, PriorityQueue<Workload>> heaps = new HashMap<>();
+        for (User processor : processors) {
+            heaps.computeIfAbsent(processor.getDepartmentId(), id -> new PriorityQueue<>(LEAST_LOADED))
+                    .add(new Workload(processor.getUserId(), activeCounts.getOrDefault(processor.getUserId(), 0L)));
+        }
+
+        // 4. 内存中分配: 取堆顶, 工作量加一后放回
+        List<Ticket> assignments = new ArrayList<>(pendingTickets.size());
+        Map<Long, Integer> unassigned = new HashMap<>();
+        for (Ticket ticket : pendingTickets) {
+            PriorityQueue<Workload> heap = heaps.get(ticket.getDepartmentId());
+            if (heap == null) {
+                unassigned.merge(ticket.getDepartmentId(), 1, Integer::sum);
+                continue;
+            }
+            Workload least = heap.poll();
+            least.activeCount++;
+            heap.add(least);
+
+            Ticket assignment = new Ticket();
+            assignment.setTicketId(ticket.getTicketId());
+            assignment.setProcessorId(least.processorId);
+            assignments.add(assignment);
+        }
+        unassigned.forEach((departmentId, count) ->
+                log.warn("部门{} 没有可用处理人, {} 个工单未分配", departmentId, count));
+
+        // 5. 分块批量写回
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < assignments.size(); from += BATCH_SIZE) {
+            persist(assignments.subList(from, Math.min(from + BATCH_SIZE, assignments.size())), now);
+        }
+        log.debug("自动分配完成, 待分配 {} 个, 已分配 {} 个", pendingTickets.size(), assignments.size());
+        return assignments.size();
+    }
+
+    private void persist(List<Ticket> batch, LocalDateTime now) {
+        List<Long> ticketIds = batch.stream().map(Ticket::getTicketId).toList();
+        statsRollup.beforeChange(ticketIds);
+        int rows = ticketMapper.batchAssignTickets(batch, TicketStatus.PROCESSING, now);
+        if (rows != batch.size()) {
+            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED, "更新工单失败");
+        }
+        statsRollup.afterChange(ticketIds);
+
+        // 分配记录与通知随事务提交批量写入
+        for (Ticket assignment : batch) {
+            TicketRecord record = new TicketRecord();
+            record.setTicketId(assignment.getTicketId());
+            record.setOperatorId(assignment.getProcessorId());
+            record.setOperationType(OperationType.ASSIGN);
+            record.setOperationContent("系统自动分配");
+            record.setCreateTime(now);
+            record.setIsDeleted(0);
+            writeBuffer.addRecord(record);
+
+            notificationService.createAssignNotification(
+                    assignment.getTicketId(),
+                    assignment.getProcessorId(),
+                    String.format("系统已自动为您分配工单：%d，请及时处理", assignment.getTicketId())
+            );
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.Ticket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TicketAssignmentQueue}
+ * 工单即时分配队列
+ * 工单创建/转交的事务提交后入队, 由专用线程批量取出交给 {@link TicketAssignmentEngine} 分配;
+ * 批量导入不逐个入队, 提交后由同一线程执行一次 {@link #sweep}; 队列满或分配失败的工单由定时对账任务兜底
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class TicketAssignmentQueue {
+
+    private static final int CAPACITY = 10000;
+    /** 每次最多取出的工单数 */
+    private static final int MAX_BATCH = 100;
+    /** 对账时每批锁定的工单数 */
+    private static final int SWEEP_BATCH = 200;
+    /** 队列中表示"执行一次对账"的标记, 不是有效的工单ID */
+    private static final Long SWEEP = 0L;
+
+    private final TicketAssignmentEngine assignmentEngine;
+
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>(CAPACITY);
+    /** ticketId -> 入队时间(纳秒), 同一工单在队列中只保留一份 */
+    private final ConcurrentHashMap<Long, Long> enqueuedAt = new ConcurrentHashMap<>();
+
+    private final Timer latency;
+    private final Counter rejected;
+    private final Counter failed;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public TicketAssignmentQueue(TicketAssignmentEngine assignmentEngine, MeterRegistry meterRegistry) {
+        this.assignmentEngine = assignmentEngine;
+        Gauge.builder("ticket.assign.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.latency = Timer.builder("ticket.assign.latency")
+                .description("工单入队到分配完成的耗时")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ticket.assign.queue.rejected").register(meterRegistry);
+        this.failed = Counter.builder("ticket.assign.failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "ticket-assign");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * 当前事务提交后入队, 没有事务时立即入队
+     * @param ticketId 工单ID
+     */
+    public void enqueueAfterCommit(Long ticketId) {
+        if (ticketId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(ticketId);
+                }
+            });
+        } else {
+            enqueue(ticketId);
+        }
+    }
+
+    /**
+     * 当前事务提交后执行一次对账, 用于批量导入; 排队中的多次请求只执行一次
+     */
+    public void sweepAfterCommit() {
+        enqueueAfterCommit(SWEEP);
+    }
+
+    /**
+     * 对账: 按创建时间分批锁定并分配所有待处理工单, 每批一个事务
+     * @return 成功分配的工单数
+     */
+    public int sweep() {
+        TicketAssignmentEngine.BatchResult batch;
+        Ticket after = null;
+        int claimed = 0;
+        int assigned = 0;
+        do {
+            batch = assignmentEngine.assignPendingBatch(after, SWEEP_BATCH);
+            claimed += batch.claimed();
+            assigned += batch.assigned();
+            after = batch.last();
+        } while (batch.claimed() == SWEEP_BATCH);
+        log.info("分配对账: 待分配 {} 个, 已分配 {} 个", claimed, assigned);
+        return assigned;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void enqueue(Long ticketId) {
+        if (enqueuedAt.putIfAbsent(ticketId, System.nanoTime()) != null) {
+            return;
+        }
+        if (!queue.offer(ticketId)) {
+            enqueuedAt.remove(ticketId);
+            rejected.increment();
+            log.warn("分配队列已满, {}将由定时任务分配", SWEEP.equals(ticketId) ? "导入的工单" : "工单" + ticketId);
+        }
+    }
+
+    private void run() {
+        List<Long> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                assign(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void assign(List<Long> batch) {
+        boolean sweepRequested = batch.remove(SWEEP);
+        if (sweepRequested) {
+            enqueuedAt.remove(SWEEP);
+        }
+        if (!batch.isEmpty()) {
+            try {
+                assignmentEngine.assignTickets(batch);
+            } catch (Exception e) {
+                failed.increment(batch.size());
+                log.error("即时分配工单失败, 将由定时任务重试: {}", batch, e);
+            }
+        }
+        if (sweepRequested) {
+            try {
+                sweep();
+            } catch (Exception e) {
+                log.error("导入后分配工单失败, 将由定时任务重试", e);
+            }
+        }
+        long now = System.nanoTime();
+        for (Long ticketId : batch) {
+            Long start = enqueuedAt.remove(ticketId);
+            if (start != null) {
+                latency.record(now - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
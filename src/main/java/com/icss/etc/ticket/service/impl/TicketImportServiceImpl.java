@@ -1,22 +1,36 @@
 package com.icss.etc.ticket.service.impl;
 
+import com.icss.etc.ticket.entity.Department;
+import com.icss.etc.ticket.entity.Ticket;
+import com.icss.etc.ticket.entity.TicketType;
 import com.icss.etc.ticket.entity.dto.ticket.TicketExportDTO;
+import com.icss.etc.ticket.entity.dto.ticket.TicketImportResultDTO;
 import com.icss.etc.ticket.enums.CodeEnum;
+import com.icss.etc.ticket.enums.Priority;
 import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.mapper.DepartmentMapper;
+import com.icss.etc.ticket.mapper.TicketTypeMapper;
 import com.icss.etc.ticket.service.TicketImportService;
 import com.icss.etc.ticket.service.TicketService;
+import com.icss.etc.ticket.util.ExcelUtil;
+import com.icss.etc.ticket.util.SecurityUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * {@code TicketImportServiceImpl}
+ * 流式读取Excel, 按块批量写入, 每块单独提交, 避免大文件导入长时间占用 t_ticket
  *
  * @author SevenThRe
  * @version 1.0
@@ -25,56 +39,190 @@ import java.util.List;
 @Service
 @Slf4j
 public class TicketImportServiceImpl implements TicketImportService {
+
+    /** 优先级显示名, 与导出时一致 */
+    private static final Map<String, Priority> PRIORITY_NAMES = Map.of(
+            "普通", Priority.NORMAL,
+            "紧急", Priority.URGENT,
+            "非常紧急", Priority.EXTREMELY_URGENT
+    );
+
+    /** 最多返回的跳过原因条数 */
+    private static final int MAX_ERRORS = 100;
+
+    /** 标题最大长度, 与 t_ticket.title 一致 */
+    private static final int MAX_TITLE_LENGTH = 100;
+
     @Autowired
     private TicketService ticketService;
 
-    public void importFromExcel(MultipartFile file) {
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<TicketExportDTO> tickets = new ArrayList<>();
+    @Autowired
+    private DepartmentMapper departmentMapper;
 
-            // 跳过表头行
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row != null) {
-                    tickets.add(parseRow(row));
-                }
-            }
+    @Autowired
+    private TicketTypeMapper ticketTypeMapper;
 
-            ticketService.importTickets(tickets);
-        } catch (Exception e) {
+    /** 每块提交的行数 */
+    @Value("${ticket.import.chunkSize:1000}")
+    private int chunkSize;
+
+    @Override
+    public TicketImportResultDTO importFromExcel(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "导入文件不能为空");
+        }
+        String fileName = file.getOriginalFilename();
+        if (fileName == null || !fileName.toLowerCase().endsWith(".xlsx")) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "仅支持.xlsx格式");
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("ticket-import-", ".xlsx");
+            file.transferTo(temp);
+            return importFromExcel(temp.toFile(), SecurityUtils.getCurrentUserId(), progress ->
+                    log.info("导入工单进度: 第{}块已提交, 已导入{}条, 跳过{}条",
+                            progress.chunks(), progress.imported(), progress.skipped()));
+        } catch (IOException e) {
             log.error("导入工单失败:", e);
             throw new BusinessException(CodeEnum.INTERNAL_ERROR, "导入失败");
+        } finally {
+            deleteQuietly(temp);
         }
     }
 
-    private TicketExportDTO parseRow(Row row) {
-        TicketExportDTO dto = new TicketExportDTO();
+    @Override
+    public TicketImportResultDTO importFromExcel(File file, Long operatorId, Consumer<TicketImportResultDTO> progress) {
+        ImportState state = new ImportState(operatorId, progress);
         try {
-            dto.setTitle(getCellStringValue(row.getCell(1)));
-            dto.setContent(getCellStringValue(row.getCell(2)));
-            dto.setDepartmentName(getCellStringValue(row.getCell(3)));
-            dto.setPriorityName(getCellStringValue(row.getCell(6)));
-            dto.setExpectFinishTime(getCellDateValue(row.getCell(8)));
+            ExcelUtil.read(file, TicketExportDTO.class, new ExcelUtil.RowHandler<>() {
+                @Override
+                public void handle(int rowNum, TicketExportDTO row) {
+                    state.add(rowNum, row);
+                }
+
+                @Override
+                public void invalid(int rowNum, String message) {
+                    state.skip(rowNum, message);
+                }
+            });
+            state.commit();
+        } catch (BusinessException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            log.error("解析导入文件失败, 已导入{}条:", state.imported, e);
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "数据格式错误, 已导入" + state.imported + "条");
         } catch (Exception e) {
-            log.error("解析行数据失败:", e);
-            throw new BusinessException(CodeEnum.BAD_REQUEST, "数据格式错误");
+            log.error("导入工单失败, 已导入{}条:", state.imported, e);
+            throw new BusinessException(CodeEnum.INTERNAL_ERROR, "导入失败, 已导入" + state.imported + "条");
         }
-        return dto;
+        log.info("导入工单完成, 导入{}条, 跳过{}条", state.imported, state.skipped);
+        return state.snapshot();
     }
 
-    private String getCellStringValue(Cell cell) {
-        if (cell == null) return null;
-        cell.setCellType(CellType.STRING);
-        return cell.getStringCellValue();
+    /**
+     * 一次导入的状态: 名称查找表、当前块与计数
+     */
+    private final class ImportState {
+        private final Long operatorId;
+        private final Consumer<TicketImportResultDTO> progress;
+        /** 部门名称 -> 部门ID, 整个导入只查询一次 */
+        private final Map<String, Long> departmentIds = new HashMap<>();
+        /** 导入文件没有工单类型列, 统一使用第一个启用的类型 */
+        private final Long typeId;
+        private final LocalDateTime now = LocalDateTime.now();
+
+        private final List<Ticket> chunk = new ArrayList<>(chunkSize);
+        private final List<String> errors = new ArrayList<>();
+        private int chunks;
+        private int imported;
+        private int skipped;
+
+        ImportState(Long operatorId, Consumer<TicketImportResultDTO> progress) {
+            this.operatorId = operatorId;
+            this.progress = progress;
+            for (Department department : departmentMapper.selectAll()) {
+                departmentIds.put(department.getDepartmentName(), department.getDepartmentId());
+            }
+            List<TicketType> types = ticketTypeMapper.selectByAll(TicketType.builder().isDeleted(0).status(1).build());
+            if (types.isEmpty()) {
+                throw new BusinessException(CodeEnum.BAD_REQUEST, "没有可用的工单类型");
+            }
+            this.typeId = types.get(0).getTypeId();
+        }
+
+        void add(int rowNum, TicketExportDTO row) {
+            if (row.getTitle() == null || row.getContent() == null) {
+                skip(rowNum, "标题和内容不能为空");
+                return;
+            }
+            if (row.getTitle().length() > MAX_TITLE_LENGTH) {
+                skip(rowNum, "标题不能超过" + MAX_TITLE_LENGTH + "个字符");
+                return;
+            }
+            Long departmentId = departmentIds.get(row.getDepartmentName());
+            if (departmentId == null) {
+                skip(rowNum, "部门不存在: " + row.getDepartmentName());
+                return;
+            }
+            Priority priority = Priority.NORMAL;
+            if (row.getPriorityName() != null) {
+                priority = PRIORITY_NAMES.get(row.getPriorityName());
+                if (priority == null) {
+                    skip(rowNum, "优先级不存在: " + row.getPriorityName());
+                    return;
+                }
+            }
+
+            Ticket ticket = new Ticket();
+            ticket.setTypeId(typeId);
+            ticket.setTitle(row.getTitle());
+            ticket.setContent(row.getContent());
+            ticket.setDepartmentId(departmentId);
+            ticket.setPriority(priority);
+            ticket.setExpectFinishTime(row.getExpectFinishTime());
+            ticket.setCreateBy(operatorId);
+            ticket.setCreateTime(now);
+            chunk.add(ticket);
+            if (chunk.size() >= chunkSize) {
+                commit();
+            }
+        }
+
+        void skip(int rowNum, String message) {
+            skipped++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(String.format("第%d行: %s", rowNum, message));
+            }
+        }
+
+        /**
+         * 当前块在单独的事务中写入
+         */
+        void commit() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            ticketService.importTickets(chunk);
+            imported += chunk.size();
+            chunks++;
+            chunk.clear();
+            progress.accept(snapshot());
+        }
+
+        TicketImportResultDTO snapshot() {
+            return new TicketImportResultDTO(chunks, imported, skipped, List.copyOf(errors));
+        }
     }
 
-    private LocalDateTime getCellDateValue(Cell cell) {
-        if (cell == null) return null;
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
         try {
-            return cell.getLocalDateTimeCellValue();
-        } catch (Exception e) {
-            return null;
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", path, e);
         }
     }
 }
@@ -0,0 +1,300 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.config.WebSocketServer;
+import com.icss.etc.ticket.entity.dto.ticket.TicketExportDTO;
+import com.icss.etc.ticket.entity.dto.ticket.TicketImportResultDTO;
+import com.icss.etc.ticket.entity.dto.ticket.TicketQueryDTO;
+import com.icss.etc.ticket.entity.vo.ticket.TicketJobVO;
+import com.icss.etc.ticket.enums.CodeEnum;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.service.TicketImportService;
+import com.icss.etc.ticket.service.TicketJobService;
+import com.icss.etc.ticket.service.TicketService;
+import com.icss.etc.ticket.util.ExcelUtil;
+import com.icss.etc.ticket.util.JsonUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * {@code TicketJobServiceImpl}
+ * 导入/导出在有界线程池中后台执行, 提交后立即返回任务ID;
+ * 进度可轮询查询, 同时通过 WebSocket 推送给提交人; 导出文件保存在任务目录中供下载, 过期后清理
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Service
+@Slf4j
+public class TicketJobServiceImpl implements TicketJobService {
+
+    /** 导出每写入多少行更新一次进度 */
+    private static final int EXPORT_PROGRESS_STEP = 1000;
+    /** 同一任务两次进度推送的最小间隔 */
+    private static final long PUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TicketService ticketService;
+    private final TicketImportService ticketImportService;
+    private final WebSocketServer webSocketServer;
+
+    private final ThreadPoolExecutor executor;
+    /** 导入上传文件与导出结果文件的存放目录 */
+    private final Path workDir;
+    /** 已结束的任务保留时长 */
+    private final long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public TicketJobServiceImpl(TicketService ticketService,
+                                TicketImportService ticketImportService,
+                                WebSocketServer webSocketServer,
+                                MeterRegistry meterRegistry,
+                                @Value("${ticket.job.threads:2}") int threads,
+                                @Value("${ticket.job.queueCapacity:20}") int queueCapacity,
+                                @Value("${ticket.job.retentionMinutes:60}") long retentionMinutes) throws IOException {
+        this.ticketService = ticketService;
+        this.ticketImportService = ticketImportService;
+        this.webSocketServer = webSocketServer;
+        this.retentionMinutes = retentionMinutes;
+        this.workDir = Files.createTempDirectory("ticket-jobs-");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ticket-job");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("ticket.job.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("ticket.job.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    /**
+     * 任务执行体
+     */
+    @FunctionalInterface
+    private interface JobTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * 任务运行状态, 由任务线程更新, 查询线程读取
+     */
+    private static final class Job {
+        final String jobId = UUID.randomUUID().toString().replace("-", "");
+        final TicketJobVO.Type type;
+        final Long userId;
+        final String fileName;
+        final LocalDateTime createTime = LocalDateTime.now();
+
+        volatile TicketJobVO.Status status = TicketJobVO.Status.QUEUED;
+        volatile int processed;
+        volatile String message;
+        volatile TicketImportResultDTO importResult;
+        volatile LocalDateTime finishTime;
+        /** 导入任务为上传文件, 导出任务为结果文件 */
+        volatile Path file;
+        /** 上次推送时间, 只在任务线程中访问 */
+        long lastPush;
+
+        Job(TicketJobVO.Type type, Long userId, String fileName) {
+            this.type = type;
+            this.userId = userId;
+            this.fileName = fileName;
+        }
+
+        TicketJobVO toVO() {
+            return new TicketJobVO(jobId, type, status, processed, message, importResult, fileName,
+                    createTime, finishTime);
+        }
+    }
+
+    @Override
+    public String submitExport(TicketQueryDTO queryDTO, Long userId) {
+        String fileName = String.format("工单列表_%s",
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+        Job job = new Job(TicketJobVO.Type.EXPORT, userId, fileName);
+        submit(job, () -> runExport(job, queryDTO));
+        return job.jobId;
+    }
+
+    @Override
+    public String submitImport(MultipartFile file, Long userId) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "导入文件不能为空");
+        }
+        String originalName = file.getOriginalFilename();
+        if (originalName == null || !originalName.toLowerCase().endsWith(".xlsx")) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "仅支持.xlsx格式");
+        }
+
+        Job job = new Job(TicketJobVO.Type.IMPORT, userId, null);
+        // 请求结束后上传的临时文件会被删除, 先保存到任务目录
+        job.file = workDir.resolve(job.jobId + "-import.xlsx");
+        try {
+            file.transferTo(job.file);
+        } catch (IOException e) {
+            log.error("保存导入文件失败:", e);
+            throw new BusinessException(CodeEnum.INTERNAL_ERROR, "导入失败");
+        }
+        try {
+            submit(job, () -> runImport(job));
+        } catch (BusinessException e) {
+            deleteQuietly(job.file);
+            throw e;
+        }
+        return job.jobId;
+    }
+
+    @Override
+    public TicketJobVO getJob(String jobId, Long userId) {
+        return findJob(jobId, userId).toVO();
+    }
+
+    @Override
+    public Path getExportFile(String jobId, Long userId) {
+        Job job = findJob(jobId, userId);
+        if (job.type != TicketJobVO.Type.EXPORT || job.status != TicketJobVO.Status.SUCCEEDED) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "导出任务未完成");
+        }
+        return job.file;
+    }
+
+    /**
+     * 清理过期任务及其文件
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void cleanExpiredJobs() {
+        LocalDateTime deadline = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishTime == null || job.finishTime.isAfter(deadline)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Job findJob(String jobId, Long userId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            throw new BusinessException(CodeEnum.DATA_NOT_FOUND, "任务不存在或已过期");
+        }
+        return job;
+    }
+
+    private void submit(Job job, JobTask task) {
+        jobs.put(job.jobId, job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            throw new BusinessException(CodeEnum.FAIL, "后台任务过多, 请稍后再试");
+        }
+    }
+
+    private void run(Job job, JobTask task) {
+        job.status = TicketJobVO.Status.RUNNING;
+        push(job, true);
+        try {
+            task.run();
+            job.status = TicketJobVO.Status.SUCCEEDED;
+        } catch (BusinessException e) {
+            job.message = e.getMessage();
+            job.status = TicketJobVO.Status.FAILED;
+        } catch (Exception e) {
+            log.error("{}任务执行失败, jobId:{}", job.type, job.jobId, e);
+            job.message = "任务执行失败";
+            job.status = TicketJobVO.Status.FAILED;
+        } finally {
+            job.finishTime = LocalDateTime.now();
+            push(job, true);
+        }
+    }
+
+    private void runExport(Job job, TicketQueryDTO queryDTO) throws IOException {
+        Path file = workDir.resolve(job.jobId + ".xlsx");
+        try (ExcelUtil.SheetWriter<TicketExportDTO> writer = ExcelUtil.openWriter(TicketExportDTO.class)) {
+            ticketService.exportTickets(queryDTO, row -> {
+                writer.write(row);
+                if (writer.getRowCount() % EXPORT_PROGRESS_STEP == 0) {
+                    job.processed = writer.getRowCount();
+                    push(job, false);
+                }
+            });
+            try (OutputStream out = Files.newOutputStream(file)) {
+                writer.writeTo(out);
+            }
+            job.processed = writer.getRowCount();
+            job.file = file;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private void runImport(Job job) {
+        try {
+            TicketImportResultDTO result = ticketImportService.importFromExcel(job.file.toFile(), job.userId,
+                    progress -> {
+                        job.importResult = progress;
+                        job.processed = progress.imported();
+                        push(job, false);
+                    });
+            job.importResult = result;
+            job.processed = result.imported();
+        } finally {
+            deleteQuietly(job.file);
+            job.file = null;
+        }
+    }
+
+    /**
+     * 推送任务状态给提交人, 进度推送按间隔节流, 状态变化时总是推送
+     */
+    private void push(Job job, boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - job.lastPush < PUSH_INTERVAL_NANOS) {
+            return;
+        }
+        job.lastPush = now;
+        try {
+            webSocketServer.sendToUser(job.userId, JsonUtil.toJson(Map.of("type", "ticketJob", "job", job.toVO())));
+        } catch (Exception e) {
+            log.warn("推送任务进度失败, jobId:{}", job.jobId, e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除任务文件失败: {}", path, e);
+        }
+    }
+}
@@ -26,10 +26,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @ClassName
@@ -49,7 +50,15 @@ public class TicketServiceImpl implements TicketService {
     private final UserSettingsMapper userSettingsMapper;
     private final UserMapper userMapper;
     private final UserRoleMapper userRoleMapper;
-    private final OnlineUserManager onlineUserManager;
+    private final TicketAssignmentQueue assignmentQueue;
+    private final TransactionWriteBuffer writeBuffer;
+    private final TicketStatsRollup statsRollup;
+
+    /** 导入时每条多行INSERT包含的工单数 */
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    /** 游标分页每页最多条数 */
+    private static final int MAX_PAGE_SIZE = 100;
 
 
     public TicketServiceImpl(TicketMapper ticketMapper,
@@ -59,7 +68,9 @@ public class TicketServiceImpl implements TicketService {
                              UserMapper userMapper,
                              UserSettingsMapper userSettingsMapper,
                              UserRoleMapper userRoleMapper,
-                             OnlineUserManager onlineUserManager) {
+                             TicketAssignmentQueue assignmentQueue,
+                             TransactionWriteBuffer writeBuffer,
+                             TicketStatsRollup statsRollup) {
         this.ticketMapper = ticketMapper;
         this.ticketRecordMapper = ticketRecordMapper;
         this.notificationService = notificationService;
@@ -67,7 +78,9 @@ public class TicketServiceImpl implements TicketService {
         this.userMapper = userMapper;
         this.userSettingsMapper = userSettingsMapper;
         this.userRoleMapper = userRoleMapper;
-        this.onlineUserManager = onlineUserManager;
+        this.assignmentQueue = assignmentQueue;
+        this.writeBuffer = writeBuffer;
+        this.statsRollup = statsRollup;
     }
 
 
@@ -86,6 +99,14 @@ public class TicketServiceImpl implements TicketService {
         return new PageInfo<>(list);
     }
 
+    @Override
+    public CursorPageResult<Ticket> getTicketListByCursor(TicketQueryDTO queryDTO) {
+        int pageSize = normalizePageSize(queryDTO.getPageSize());
+        TicketCursor cursor = TicketCursor.decode(queryDTO.getCursor());
+        List<Ticket> rows = ticketMapper.selectTicketListByCursor(queryDTO, cursor, pageSize + 1);
+        return toCursorPage(rows, pageSize, TicketCursor::ofTicketList);
+    }
+
     @Override
     public TicketDetailVO getTicketDetail(Long ticketId) {
         // 1. 获取工单详情
@@ -120,6 +141,7 @@ public class TicketServiceImpl implements TicketService {
         if (ticketMapper.insertTicket(ticket) <= 0) {
             throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED,"工单创建失败");
         }
+        statsRollup.afterChange(List.of(ticket.getTicketId()));
 
         // 3. 添加创建记录
         TicketRecord record = new TicketRecord();
@@ -130,16 +152,16 @@ public class TicketServiceImpl implements TicketService {
         record.setCreateTime(LocalDateTime.now());
         record.setIsDeleted(0);
 
-        if(ticketRecordMapper.insertRecord(record) <= 0) {
-            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED,"创建工单记录失败");
-        }
-        log.info("创建工单记录成功: {}", record);
+        writeBuffer.addRecord(record);
         if(ticket.getProcessorId() != null) {
             notificationService.createAssignNotification(
                     ticket.getTicketId(),
                     ticket.getProcessorId(),
                     String.format("您有新的工单待处理: %s", ticket.getTitle())
             );
+        } else {
+            // 未指定处理人, 提交后立即自动分配
+            assignmentQueue.enqueueAfterCommit(ticket.getTicketId());
         }
         log.info("{} 创建工单成功: {}", ticket.getCreateBy(),ticket);
         return ticket.getTicketId();
@@ -170,9 +192,12 @@ public class TicketServiceImpl implements TicketService {
             update.setActualFinishTime(LocalDateTime.now());
         }
 
+        List<Long> ticketIds = List.of(updateDTO.getTicketId());
+        statsRollup.beforeChange(ticketIds);
         if (ticketMapper.updateTicket(update) <= 0) {
             throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
         }
+        statsRollup.afterChange(ticketIds);
 
         // 4. 添加状态变更记录
         TicketRecord record = new TicketRecord();
@@ -183,9 +208,7 @@ public class TicketServiceImpl implements TicketService {
         record.setCreateTime(LocalDateTime.now());
         record.setIsDeleted(0);
 
-        if(ticketRecordMapper.insertRecord(record) <= 0) {
-            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
-        }
+        writeBuffer.addRecord(record);
 
         switch(updateDTO.getStatus()) {
             case PROCESSING ->
@@ -236,9 +259,7 @@ public class TicketServiceImpl implements TicketService {
         }
         // 禁止使用此接口评分
         recordDTO.setEvaluationScore(null);
-        if (ticketRecordMapper.insertRecord(record) <= 0) {
-            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
-        }
+        writeBuffer.addRecord(record);
     }
 
     /**
@@ -293,17 +314,14 @@ public class TicketServiceImpl implements TicketService {
             throw new BusinessException(TicketEnum.TICKET_STATUS_EXCEPTION);
         }
 
-        // 3. 更新工单部门
-        Ticket update = new Ticket();
-        update.setTicketId(request.getTicketId());
-        update.setDepartmentId(request.getDepartmentId());
-        update.setProcessorId(null); // 清空处理人
-        update.setUpdateBy(request.getUpdateBy());
-        update.setUpdateTime(LocalDateTime.now());
-
-        if (ticketMapper.updateTicket(update) <= 0) {
+        // 3. 更新工单部门, 清空处理人并回到待处理
+        List<Long> ticketIds = List.of(request.getTicketId());
+        statsRollup.beforeChange(ticketIds);
+        if (ticketMapper.transferTicket(request.getTicketId(), request.getDepartmentId(),
+                request.getUpdateBy()) <= 0) {
             throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
         }
+        statsRollup.afterChange(ticketIds);
 
         // 4. 添加转交记录
         TicketRecord record = new TicketRecord();
@@ -314,7 +332,7 @@ public class TicketServiceImpl implements TicketService {
         record.setCreateTime(LocalDateTime.now());
         record.setIsDeleted(0);
 
-        ticketRecordMapper.insertRecord(record);
+        writeBuffer.addRecord(record);
 
         // 通知新处理人
         notificationService.createAssignNotification(
@@ -331,6 +349,9 @@ public class TicketServiceImpl implements TicketService {
                     String.format("工单已转交他人处理: %s", ticket.getTitle())
             );
         }
+
+        // 提交后在新部门内重新分配
+        assignmentQueue.enqueueAfterCommit(request.getTicketId());
     }
 
     /**
@@ -347,7 +368,10 @@ public class TicketServiceImpl implements TicketService {
 
         ticket.setIsDeleted(1);
         ticket.setUpdateTime(LocalDateTime.now());
+        List<Long> ticketIds = List.of(ticketId);
+        statsRollup.beforeChange(ticketIds);
         ticketMapper.updateTicket(ticket);
+        statsRollup.afterChange(ticketIds);
 
         // 删除相关通知
         notificationService.deleteByTicketId(ticketId);
@@ -361,7 +385,7 @@ public class TicketServiceImpl implements TicketService {
         record.setCreateTime(LocalDateTime.now());
         record.setIsDeleted(0);
 
-        ticketRecordMapper.insertRecord(record);
+        writeBuffer.addRecord(record);
     }
 
 
@@ -394,9 +418,7 @@ public class TicketServiceImpl implements TicketService {
         record.setIsDeleted(0);
 
 
-        if(ticketRecordMapper.insertRecord(record) <= 0) {
-            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED, "评价保存失败");
-        }
+        writeBuffer.addRecord(record);
 
         // 4. 更新工单状态为已关闭
         this.updateTicketStatus(new UpdateTicketStatusDTO(
@@ -434,6 +456,17 @@ public class TicketServiceImpl implements TicketService {
         return new PageInfo<>(tickets);
     }
 
+    @Override
+    public CursorPageResult<Ticket> getTodoTicketsByCursor(TicketQueryDTO queryDTO) {
+        if (queryDTO.getProcessorId() == null) {
+            throw new BusinessException(CodeEnum.BAD_REQUEST, "处理人ID不能为空");
+        }
+        int pageSize = normalizePageSize(queryDTO.getPageSize());
+        TicketCursor cursor = TicketCursor.decode(queryDTO.getCursor());
+        List<Ticket> rows = ticketMapper.selectTodoListByCursor(queryDTO, cursor, pageSize + 1);
+        return toCursorPage(rows, pageSize, TicketCursor::ofTodoList);
+    }
+
     @Override
     public TicketStatisticsVO getTicketStatistics(Long userId) {
         TicketStatisticsVO statistics = new TicketStatisticsVO();
@@ -457,17 +490,19 @@ public class TicketServiceImpl implements TicketService {
 
     @Override
     public Map<String, Integer> countByStatus(Long userId) {
+        // 处理人的各状态工单数, 读统计汇总表
+        Map<TicketStatus, Long> counts = statsRollup.countByStatus(null, userId, null);
         Map<String, Integer> result = new HashMap<>();
-        result.put("PENDING", ticketMapper.countTicketsByStatus(userId, TicketStatus.PENDING));
-        result.put("PROCESSING", ticketMapper.countTicketsByStatus(userId, TicketStatus.PROCESSING));
-        result.put("COMPLETED", ticketMapper.countTicketsByStatus(userId, TicketStatus.COMPLETED));
-        result.put("CLOSED", ticketMapper.countTicketsByStatus(userId, TicketStatus.CLOSED));
+        for (TicketStatus status : List.of(TicketStatus.PENDING, TicketStatus.PROCESSING,
+                TicketStatus.COMPLETED, TicketStatus.CLOSED)) {
+            result.put(status.name(), counts.get(status).intValue());
+        }
         return result;
     }
 
     @Override
     public Long countByStatus(TicketStatus status) {
-        return ticketMapper.countBySS(status);
+        return statsRollup.countByStatus(null, null, null).get(status);
     }
 
     @Override
@@ -525,34 +560,50 @@ public class TicketServiceImpl implements TicketService {
         return ticketMapper.selectForExport(queryDTO);
     }
 
+    @Override
+    public void exportTickets(TicketQueryDTO queryDTO, Consumer<TicketExportDTO> consumer) {
+        ticketMapper.streamForExport(queryDTO, context -> consumer.accept(context.getResultObject()));
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void importTickets(List<TicketExportDTO> exportDTOs) {
-        for (TicketExportDTO exportDTO : exportDTOs) {
-            // 1. 转换为Ticket实体
-            Ticket ticket = new Ticket();
-            BeanUtils.copyProperties(exportDTO, ticket);
+    public void importTickets(List<Ticket> tickets) {
+        if (tickets == null || tickets.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
 
-            // 2. 设置默认值
+        // 1. 设置默认值
+        for (Ticket ticket : tickets) {
             ticket.setStatus(TicketStatus.PENDING);
-            ticket.setCreateBy(SecurityUtils.getCurrentUserId());
-            ticket.setCreateTime(LocalDateTime.now());
+            if (ticket.getCreateTime() == null) {
+                ticket.setCreateTime(now);
+            }
             ticket.setIsDeleted(0);
+        }
 
-            // 3. 保存数据
-            ticketMapper.insertTicket(ticket);
+        // 2. 分批保存数据, 回填工单ID, 计入统计
+        for (int from = 0; from < tickets.size(); from += IMPORT_BATCH_SIZE) {
+            List<Ticket> batch = tickets.subList(from, Math.min(from + IMPORT_BATCH_SIZE, tickets.size()));
+            ticketMapper.batchInsertTickets(batch);
+            statsRollup.afterChange(batch.stream().map(Ticket::getTicketId).toList());
+        }
 
-            // 4. 添加创建记录
+        // 3. 添加创建记录, 随事务提交批量写入
+        for (Ticket ticket : tickets) {
             TicketRecord record = new TicketRecord();
             record.setTicketId(ticket.getTicketId());
-            record.setOperatorId(SecurityUtils.getCurrentUserId());
+            record.setOperatorId(ticket.getCreateBy());
             record.setOperationType(OperationType.CREATE);
             record.setOperationContent("批量导入创建");
-            record.setCreateTime(LocalDateTime.now());
+            record.setCreateTime(now);
             record.setIsDeleted(0);
 
-            ticketRecordMapper.insertRecord(record);
+            writeBuffer.addRecord(record);
         }
+
+        // 4. 提交后对账一次分配全部待处理工单, 不逐个入队
+        assignmentQueue.sweepAfterCommit();
     }
 
     @Override
@@ -569,19 +620,16 @@ public class TicketServiceImpl implements TicketService {
 
         try {
             // 查询不同状态的工单数量
-            Integer pendingCount = ticketMapper.countTicketsByStatus(userId, TicketStatus.PENDING);
-            Integer processingCount = ticketMapper.countTicketsByStatus(userId, TicketStatus.PROCESSING);
+            Map<TicketStatus, Long> counts = statsRollup.countByStatus(null, userId, null);
 
-            // 查询今日完成数量
-            LocalDateTime todayStart = LocalDateTime.now().with(LocalTime.MIN);
-            LocalDateTime todayEnd = LocalDateTime.now().with(LocalTime.MAX);
-            Integer todayCompleted = ticketMapper.countCompletedTickets(userId, todayStart, todayEnd);
+            // 今日完成数量: 今天变更为已完成的工单
+            Map<TicketStatus, Long> today = statsRollup.countByStatus(null, userId, LocalDate.now());
 
             // 构建返回对象
             return TodoStatsVO.builder()
-                    .pendingCount(pendingCount != null ? pendingCount : 0)
-                    .processingCount(processingCount != null ? processingCount : 0)
-                    .todayCompleted(todayCompleted != null ? todayCompleted : 0)
+                    .pendingCount(counts.get(TicketStatus.PENDING).intValue())
+                    .processingCount(counts.get(TicketStatus.PROCESSING).intValue())
+                    .todayCompleted(today.get(TicketStatus.COMPLETED).intValue())
                     .build();
 
         } catch (Exception e) {
@@ -628,15 +676,10 @@ public class TicketServiceImpl implements TicketService {
      * 自动分配所有待处理工单
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void autoAssignPendingTickets() {
         try {
-            // 1. 获取所有待处理的工单
-            List<Ticket> pendingTickets = ticketMapper.selectPendingTickets();
-
-            for (Ticket ticket : pendingTickets) {
-                this.assignSingleTicket(ticket);
-            }
+            // 分批锁定并分配, 每批一个事务, 避免一次锁住全部待处理工单
+            assignmentQueue.sweep();
         } catch (Exception e) {
             log.error("批量分配工单失败", e);
             throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
@@ -675,114 +718,31 @@ public class TicketServiceImpl implements TicketService {
 
     }
 
-    /**
-     * 分配单个工单
-     */
-    @Transactional(rollbackFor = Exception.class)
-    public void assignSingleTicket(Ticket ticket) {
-        try {
-            // 1. 获取部门内所有可用处理人
-            List<User> availableProcessors = selectAvailableProcessors(ticket.getDepartmentId());
-            if (availableProcessors.isEmpty()) {
-                log.warn("部门{} - {} , 没有可用处理人",ticket.getDepartmentId(), ticket.getDepartmentName());
-//                throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED, "部门没有可用处理人");
-                return;
-            }
-
-            // 2. 获取处理人工作量
-            Map<Long, Integer> workloads = new HashMap<>();
-            for (User processor : availableProcessors) {
-                int currentWorkload = ticketMapper.countActiveTickets(processor.getUserId());
-                workloads.put(processor.getUserId(), currentWorkload);
-            }
-
-            // 3. 选择工作量最少的处理人
-            Long processorId = workloads.entrySet().stream()
-                    .min(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse(null);
-
-            if (processorId == null) {
-                log.warn("无法为工单{}分配处理人", ticket.getTicketId());
-                return;
-            }
-
-            // 4. 在一个事务中执行所有操作
-            doAssignTicket(ticket.getTicketId(), processorId);
-
-        } catch (Exception e) {
-            log.error("分配工单{}失败", ticket.getTicketId(), e);
-            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
-        }
+    @Override
+    public CursorPageResult<TicketListVO> getTicketListVOByCursor(TicketQueryDTO query) {
+        int pageSize = normalizePageSize(query.getPageSize());
+        TicketCursor cursor = TicketCursor.decode(query.getCursor());
+        List<TicketListVO> rows = ticketMapper.getTicketListVOByCursor(query, cursor, pageSize + 1);
+        return toCursorPage(rows, pageSize, TicketCursor::ofTicketListVO);
     }
 
     /**
-     * 执行工单分配的具体操作
-     * 所有操作在一个事务中完成，任何一步失败都会回滚整个事务
+     * 游标分页的每页条数, 未传或非法时默认10条, 最多 {@link #MAX_PAGE_SIZE} 条
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void doAssignTicket(Long ticketId, Long processorId) {
-        try {
-            // 1. 更新工单信息
-            Ticket updateTicket = new Ticket();
-            updateTicket.setTicketId(ticketId);
-            updateTicket.setProcessorId(processorId);
-            updateTicket.setStatus(TicketStatus.PROCESSING);
-            updateTicket.setUpdateTime(LocalDateTime.now());
-
-            int rows = ticketMapper.updateTicket(updateTicket);
-            if (rows == 0) {
-                throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED, "更新工单失败");
-            }
-
-            // 2. 创建分配记录
-            TicketRecord record = new TicketRecord();
-            record.setTicketId(ticketId);
-            record.setOperatorId(processorId);
-            record.setOperationType(OperationType.ASSIGN);
-            record.setOperationContent("系统自动分配");
-            record.setCreateTime(LocalDateTime.now());
-            record.setIsDeleted(0);
-
-            rows = ticketRecordMapper.insertRecord(record);
-            if (rows == 0) {
-                throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED, "创建分配记录失败");
-            }
-
-            // 3. 发送通知
-            notificationService.createAssignNotification(
-                    ticketId,
-                    processorId,
-                    String.format("系统已自动为您分配工单：%d，请及时处理", ticketId)
-            );
-
-        } catch (Exception e) {
-            log.error("分配工单事务执行失败, ticketId: {}, processorId: {}", ticketId, processorId, e);
-            throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED);
-        }
+    private int normalizePageSize(Integer pageSize) {
+        return pageSize == null || pageSize < 1 ? 10 : Math.min(pageSize, MAX_PAGE_SIZE);
     }
 
     /**
-     * 获取可用的处理人
+     * 组装游标分页结果
+     * 查询时多取一条用于判断是否还有下一页, 下一页游标取自本页最后一条
      */
-    private List<User> selectAvailableProcessors(Long departmentId) {
-        // 1. 获取部门所有处理人
-        List<User> allProcessors = userMapper.selectDepartmentProcessors(departmentId);
-        if (allProcessors.isEmpty()) {
-            return Collections.emptyList();
+    private <T> CursorPageResult<T> toCursorPage(List<T> rows, int pageSize, Function<T, TicketCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPageResult<>(rows, null);
         }
-
-        // 2. 获取在线处理人IDs
-        Set<Long> onlineUserIds = onlineUserManager.getOnlineUsersByDepartment(
-                departmentId,
-                allProcessors.stream().map(User::getUserId).collect(Collectors.toList())
-        );
-
-        // 3. 过滤出在线的处理人
-        return allProcessors.stream()
-                .filter(user -> onlineUserIds.contains(user.getUserId()))
-                .collect(Collectors.toList());
+        List<T> page = new ArrayList<>(rows.subList(0, pageSize));
+        return new CursorPageResult<>(page, cursorOf.apply(page.get(pageSize - 1)).encode());
     }
 
-
 }
\ No newline at end of file
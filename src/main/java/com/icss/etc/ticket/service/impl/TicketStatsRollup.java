@@ -0,0 +1,142 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.dto.TicketStatsDTO;
+import com.icss.etc.ticket.entity.dto.TicketStatusCountDTO;
+import com.icss.etc.ticket.enums.TicketStatus;
+import com.icss.etc.ticket.mapper.TicketStatsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * {@code TicketStatsRollup}
+ * 工单统计汇总
+ * t_ticket_stats 按 (部门, 处理人, 状态, 最后变更日期) 保存工单数, 统计接口只读汇总表而不扫描工单表。
+ * 修改工单的方法在同一事务内先调用 {@link #beforeChange} 扣减工单原来所在的计数, 修改后调用
+ * {@link #afterChange} 按新状态增加计数; 新建工单只调用 {@link #afterChange}。
+ * 偏差由每晚的 {@link #reconcile} 按工单表修正
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class TicketStatsRollup {
+
+    /** 按主键排序, 并发事务以相同顺序锁定计数行 */
+    private static final Comparator<TicketStatsDTO> KEY_ORDER = Comparator
+            .comparing(TicketStatsDTO::departmentId)
+            .thenComparing(TicketStatsDTO::processorId)
+            .thenComparing(TicketStatsDTO::status)
+            .thenComparing(TicketStatsDTO::statDate);
+
+    private final TicketStatsMapper ticketStatsMapper;
+
+    public TicketStatsRollup(TicketStatsMapper ticketStatsMapper) {
+        this.ticketStatsMapper = ticketStatsMapper;
+    }
+
+    /**
+     * 工单修改前调用: 锁定工单并扣减其当前所在的计数
+     *
+     * @param ticketIds 工单ID
+     */
+    public void beforeChange(Collection<Long> ticketIds) {
+        if (ticketIds.isEmpty()) {
+            return;
+        }
+        List<TicketStatsDTO> current = ticketStatsMapper.lockCurrentStats(ticketIds);
+        if (current.isEmpty()) {
+            return;
+        }
+        List<TicketStatsDTO> deltas = new ArrayList<>(current.size());
+        for (TicketStatsDTO stats : current) {
+            deltas.add(new TicketStatsDTO(stats.departmentId(), stats.processorId(), stats.status(),
+                    stats.statDate(), -stats.ticketCount()));
+        }
+        deltas.sort(KEY_ORDER);
+        ticketStatsMapper.applyDeltas(deltas);
+    }
+
+    /**
+     * 工单新建或修改后调用: 按工单当前状态增加计数
+     *
+     * @param ticketIds 工单ID
+     */
+    public void afterChange(Collection<Long> ticketIds) {
+        if (ticketIds.isEmpty()) {
+            return;
+        }
+        ticketStatsMapper.addFromTickets(ticketIds);
+    }
+
+    /**
+     * 按状态汇总工单数
+     *
+     * @param departmentId 处理部门ID, null 不限
+     * @param processorId  处理人ID, null 不限
+     * @param statDate     最后变更日期, null 不限
+     * @return 状态 -> 工单数, 包含所有状态
+     */
+    public Map<TicketStatus, Long> countByStatus(Long departmentId, Long processorId, LocalDate statDate) {
+        return countByStatus(departmentId, false, processorId, statDate);
+    }
+
+    /**
+     * 按状态汇总部门及其所有下级部门的工单数
+     *
+     * @param departmentId 处理部门ID
+     * @return 状态 -> 工单数, 包含所有状态
+     */
+    public Map<TicketStatus, Long> countByStatusInSubtree(Long departmentId) {
+        return countByStatus(departmentId, true, null, null);
+    }
+
+    private Map<TicketStatus, Long> countByStatus(Long departmentId, boolean includeSubDepartments,
+                                                  Long processorId, LocalDate statDate) {
+        Map<TicketStatus, Long> counts = new EnumMap<>(TicketStatus.class);
+        for (TicketStatus status : TicketStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (TicketStatusCountDTO row : ticketStatsMapper.sumByStatus(departmentId, includeSubDepartments,
+                processorId, statDate)) {
+            TicketStatus status = TicketStatus.from(row.status());
+            if (status != null) {
+                counts.put(status, row.ticketCount());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 对账: 按工单表重新计算计数, 修正事务外修改或失败造成的偏差
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void reconcile() {
+        int rebuilt = ticketStatsMapper.rebuildFromTickets();
+        int cleared = ticketStatsMapper.clearStale();
+        int deleted = ticketStatsMapper.deleteEmpty();
+        log.info("工单统计对账完成: 写入 {}, 清零 {}, 删除 {}", rebuilt, cleared, deleted);
+    }
+
+    /**
+     * 首次部署时汇总表为空, 启动后从工单表生成
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (ticketStatsMapper.countRows() == 0) {
+                log.info("工单统计汇总表为空, 开始生成...");
+                reconcile();
+            }
+        } catch (Exception e) {
+            log.error("生成工单统计汇总失败:", e);
+        }
+    }
+}
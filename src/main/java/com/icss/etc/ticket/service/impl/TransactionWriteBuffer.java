@@ -0,0 +1,162 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.entity.Notification;
+import com.icss.etc.ticket.entity.TicketRecord;
+import com.icss.etc.ticket.enums.TicketEnum;
+import com.icss.etc.ticket.exceptions.BusinessException;
+import com.icss.etc.ticket.mapper.NotificationMapper;
+import com.icss.etc.ticket.mapper.TicketRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@code TransactionWriteBuffer}
+ * 事务内写缓冲
+ * 工单处理记录与通知先暂存在当前事务中, 提交前按批次以多行INSERT写入, 通知在提交后交给
+ * {@link NotificationDispatcher} 推送; 没有事务时立即写入
+ * 需要在事务中读取刚写入的数据时, 先调用 {@link #flush()}
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Slf4j
+public class TransactionWriteBuffer {
+
+    private final TicketRecordMapper ticketRecordMapper;
+    private final NotificationMapper notificationMapper;
+    private final NotificationDispatcher notificationDispatcher;
+
+    /** 每条多行INSERT包含的行数 */
+    private final int batchSize;
+
+    public TransactionWriteBuffer(TicketRecordMapper ticketRecordMapper,
+                                  NotificationMapper notificationMapper,
+                                  NotificationDispatcher notificationDispatcher,
+                                  @Value("${ticket.write.batchSize:500}") int batchSize) {
+        this.ticketRecordMapper = ticketRecordMapper;
+        this.notificationMapper = notificationMapper;
+        this.notificationDispatcher = notificationDispatcher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 当前事务的待写数据
+     */
+    private static final class Pending {
+        final List<TicketRecord> records = new ArrayList<>();
+        final List<Notification> notifications = new ArrayList<>();
+        /** 已写入, 等待提交后推送的通知 */
+        final List<Notification> saved = new ArrayList<>();
+    }
+
+    /**
+     * 写入工单处理记录
+     */
+    public void addRecord(TicketRecord record) {
+        Pending pending = current();
+        if (pending == null) {
+            insertRecords(List.of(record));
+            return;
+        }
+        pending.records.add(record);
+    }
+
+    /**
+     * 写入通知, 提交后推送
+     */
+    public void addNotification(Notification notification) {
+        Pending pending = current();
+        if (pending == null) {
+            List<Notification> notifications = List.of(notification);
+            insertNotifications(notifications);
+            notificationDispatcher.dispatch(notifications);
+            return;
+        }
+        pending.notifications.add(notification);
+    }
+
+    /**
+     * 立即写入当前事务中暂存的数据
+     */
+    public void flush() {
+        Pending pending = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Pending) TransactionSynchronizationManager.getResource(this)
+                : null;
+        if (pending != null) {
+            write(pending);
+        }
+    }
+
+    private void write(Pending pending) {
+        if (!pending.records.isEmpty()) {
+            insertRecords(pending.records);
+            pending.records.clear();
+        }
+        if (!pending.notifications.isEmpty()) {
+            insertNotifications(pending.notifications);
+            pending.saved.addAll(pending.notifications);
+            pending.notifications.clear();
+        }
+    }
+
+    /**
+     * 当前事务的缓冲, 首次使用时注册事务回调; 没有事务时返回null
+     */
+    private Pending current() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Pending created = new Pending();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(created);
+            }
+
+            @Override
+            public void afterCommit() {
+                if (!created.saved.isEmpty()) {
+                    notificationDispatcher.dispatch(created.saved);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionWriteBuffer.this);
+            }
+        });
+        return created;
+    }
+
+    private void insertRecords(List<TicketRecord> records) {
+        insertInBatches(records, ticketRecordMapper::batchInsert, "工单记录");
+    }
+
+    private void insertNotifications(List<Notification> notifications) {
+        insertInBatches(notifications, notificationMapper::batchInsert, "通知");
+    }
+
+    private <T> void insertInBatches(List<T> rows, ToIntFunction<List<T>> insert, String name) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<T> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            if (insert.applyAsInt(batch) != batch.size()) {
+                throw new BusinessException(TicketEnum.TICKET_OPERATION_FAILED, "保存" + name + "失败");
+            }
+        }
+        log.debug("写入{} {} 条", name, rows.size());
+    }
+}
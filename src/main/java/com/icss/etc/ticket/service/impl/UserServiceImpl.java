@@ -5,6 +5,7 @@ import com.github.pagehelper.PageInfo;
 import com.icss.etc.ticket.entity.UserRole;
 import com.icss.etc.ticket.entity.dto.DepartmentsQueryDTO;
 import com.icss.etc.ticket.entity.dto.DeptMemberDTO;
+import com.icss.etc.ticket.entity.dto.MemberPerformanceDTO;
 import com.icss.etc.ticket.entity.dto.UserPasswordDTO;
 import com.icss.etc.ticket.entity.dto.UserQueryDTO;
 import com.icss.etc.ticket.entity.dto.user.UserCreateDTO;
@@ -34,6 +35,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -51,6 +53,8 @@ public class UserServiceImpl implements UserService{
     private UserRoleMapper userRoleMapper;
     @Autowired
     private PropertiesUtil propertiesUtil;
+    @Autowired
+    private PermissionCache permissionCache;
 
     private String DEFAULT_PASSWORD;
 
@@ -64,6 +68,7 @@ public class UserServiceImpl implements UserService{
             //TODO: 将用户信息写入到T USER_ROLE表中
             Long userId = userMapper.login(user.getUsername());
             count += userRoleMapper.insert(new UserRole(userId, user.getRoleId()));
+            permissionCache.invalidate(userId);
             if (count != 2) {
                 throw new RuntimeException("register failed");
             }
@@ -168,19 +173,50 @@ public class UserServiceImpl implements UserService{
         PageHelper.startPage(departmentsQueryDTO.getPageNum(),departmentsQueryDTO.getPageSize());
         PageInfo<DeptMemberVO> pageInfo = new PageInfo<>(userMapper.queryByDepartmentId(departmentsQueryDTO));
         List<DeptMemberVO> deptMemberVOs = pageInfo.getList();
+        // 整页成员的绩效一次查询, 在内存中合并
+        Map<Long, MemberPerformanceDTO> performances = loadPerformance(
+                deptMemberVOs.stream().map(DeptMemberVO::getUserId).toList());
         for(DeptMemberVO deptMemberVO : deptMemberVOs){
-            Double avgProcessTime = ticketMapper.getAvgProcessTime(deptMemberVO.getUserId(), departmentsQueryDTO.getPerformanceFilter());
+            MemberPerformanceDTO performance = performances.get(deptMemberVO.getUserId());
+            Double avgProcessTime = performance != null ? performance.avgProcessTime() : null;
             if(avgProcessTime != null){
-                deptMemberVO.setAverageProcessingTime(avgProcessTime);
-                deptMemberVO.setProcessingEfficiency(GradeCalculator.getGrade(avgProcessTime));
-            };
-            deptMemberVO.setMonthlyPerformance(ticketMapper.getMonthlyPerformance(deptMemberVO.getUserId()));
-            deptMemberVO.setSatisfaction(ticketMapper.getSatisfaction(deptMemberVO.getUserId()));
-            deptMemberVO.setCurrentWorkload(ticketMapper.countCrrentWorkload(deptMemberVO.getUserId(),departmentsQueryDTO.getWorkloadFilter()));
+                String grade = GradeCalculator.getGrade(avgProcessTime);
+                // 按效率等级筛选时, 只填写等级相符成员的用时与等级
+                if(StringUtils.isBlank(departmentsQueryDTO.getPerformanceFilter())
+                        || grade.equals(departmentsQueryDTO.getPerformanceFilter())){
+                    deptMemberVO.setAverageProcessingTime(avgProcessTime);
+                    deptMemberVO.setProcessingEfficiency(grade);
+                }
+            }
+            deptMemberVO.setMonthlyPerformance(performance != null ? performance.monthlyPerformance() : 0);
+            deptMemberVO.setSatisfaction(performance != null ? performance.satisfaction() : null);
+            deptMemberVO.setCurrentWorkload(filterWorkload(
+                    performance != null ? performance.currentWorkload() : 0, departmentsQueryDTO.getWorkloadFilter()));
         }
         return deptMemberVOs;
     }
 
+    /**
+     * 批量获取成员绩效
+     * @param userIds 用户ID
+     * @return 用户ID -> 绩效
+     */
+    private Map<Long, MemberPerformanceDTO> loadPerformance(List<Long> userIds) {
+        if(userIds.isEmpty()) return Map.of();
+        Map<Long, MemberPerformanceDTO> performances = new HashMap<>();
+        for(MemberPerformanceDTO performance : ticketMapper.selectMemberPerformance(userIds)){
+            performances.put(performance.processorId(), performance);
+        }
+        return performances;
+    }
+
+    /**
+     * 工作量筛选: 超过上限时不返回工作量
+     */
+    private static Integer filterWorkload(Integer workload, Integer workloadFilter) {
+        return workloadFilter != null && workload > workloadFilter ? null : workload;
+    }
+
     @Override
     public List<DeptMemberVO> selectByDepartmentId(Long userId) {
         return userMapper.selectByDepartmentId(userId);
@@ -266,6 +302,7 @@ public class UserServiceImpl implements UserService{
            if (userRoleMapper.selectByUserId(userId, "USER") && userRoleMapper.selectByUserId(userId, "ADMIN")) {
                // 再删除用户的角色
                count += userRoleMapper.transferUserToNormal(userId);
+               permissionCache.invalidate(userId);
                if (count != 2) {
                    throw new BusinessException(CodeEnum.DELETE_MEMBER_FAILED);
                }
@@ -302,6 +339,7 @@ public class UserServiceImpl implements UserService{
         try {
             result = userMapper.createANewUser(user);
             result += userRoleMapper.insert(new UserRole(user.getUserId(), user.getRoleId()));
+            permissionCache.invalidate(user.getUserId());
             if (result != 2) {
                 throw new BusinessException(CodeEnum.CREATION_FAILED);
             }
@@ -329,6 +367,7 @@ public class UserServiceImpl implements UserService{
                 return i;
             }else {
                 i += userRoleMapper.insert(new UserRole(userId, userViewBackDTO.getRoleId()));
+                permissionCache.invalidate(userId);
             }
             if (i != 2) {
                 throw new BusinessException(CodeEnum.UPDATE_FAILED);
@@ -343,7 +382,8 @@ public class UserServiceImpl implements UserService{
     @Override
     public DeptMembersDetailVO getDeptMemberDetial(Long userId) {
         UserVO user = userMapper.selectUserVO(userId);
-        Double avgProcessTime = ticketMapper.getAvgProcessTime(userId, "");
+        MemberPerformanceDTO performance = loadPerformance(List.of(userId)).get(userId);
+        Double avgProcessTime = performance != null ? performance.avgProcessTime() : null;
         if(avgProcessTime == null ) avgProcessTime = 0.0;
         return DeptMembersDetailVO.builder().userId(userId)
                 .realName(user.getRealName())
@@ -351,11 +391,11 @@ public class UserServiceImpl implements UserService{
                 .phone(user.getPhone())
                 .status(user.getStatus())
                 .roleName(user.getRoleName())
-                .currentWorkload(ticketMapper.countCrrentWorkload(userId, 0))
+                .currentWorkload(filterWorkload(performance != null ? performance.currentWorkload() : 0, 0))
                 .processingEfficiency(GradeCalculator.getGrade(avgProcessTime))
                 .averageProcessingTime(avgProcessTime)
-                .satisfaction(ticketMapper.getSatisfaction(userId))
-                .monthlyPerformance(ticketMapper.getMonthlyPerformance(userId))
+                .satisfaction(performance != null ? performance.satisfaction() : null)
+                .monthlyPerformance(performance != null ? performance.monthlyPerformance() : 0)
                 .build();
     }
 
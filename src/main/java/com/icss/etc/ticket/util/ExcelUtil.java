@@ -2,17 +2,40 @@ package com.icss.etc.ticket.util;
 
 import com.icss.etc.ticket.annotation.ExcelColumn;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import jakarta.servlet.http.HttpServletResponse;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Excel工具类
@@ -24,6 +47,9 @@ import java.util.*;
 @Slf4j
 public class ExcelUtil {
 
+    /** SXSSF 内存中保留的行数, 超出的行写入临时文件 */
+    private static final int ROW_ACCESS_WINDOW = 100;
+
     /**
      * 导出Excel
      *
@@ -34,37 +60,292 @@ public class ExcelUtil {
      * @param <T>      泛型类型
      */
     public static <T> void export(String fileName, List<T> data, Class<T> clazz, HttpServletResponse response) {
-        try {
-            // 解析类注解信息
-            List<ExcelColumnInfo> columnInfos = parseColumnInfo(clazz);
+        export(fileName, clazz, response, rows -> data.forEach(rows));
+    }
+
+    /**
+     * 流式导出Excel, 数据逐行写入, 内存占用与行数无关
+     *
+     * @param fileName 文件名(不含后缀)
+     * @param clazz    数据类型
+     * @param response HTTP响应对象
+     * @param source   数据源, 将每行数据交给传入的回调
+     * @param <T>      泛型类型
+     */
+    public static <T> void export(String fileName, Class<T> clazz, HttpServletResponse response,
+                                  Consumer<Consumer<T>> source) {
+        try (SheetWriter<T> writer = openWriter(clazz)) {
+            source.accept(writer::write);
 
             // 设置响应头
             setExportResponseHeaders(fileName, response);
 
-            // 创建工作簿
-            try (Workbook workbook = new XSSFWorkbook()) {
-                Sheet sheet = workbook.createSheet("Sheet1");
+            // 输出
+            writer.writeTo(response.getOutputStream());
+        } catch (Exception e) {
+            log.error("Excel导出失败", e);
+            throw new RuntimeException("Excel导出失败: " + e.getMessage());
+        }
+    }
 
-                // 写入表头
-                writeHeader(sheet, workbook, columnInfos);
+    /**
+     * 创建流式写入器, 使用完毕后需要关闭以删除临时文件
+     *
+     * @param clazz 数据类型
+     * @param <T>   泛型类型
+     * @return 已写入表头的写入器
+     */
+    public static <T> SheetWriter<T> openWriter(Class<T> clazz) {
+        return new SheetWriter<>(columnPlan(clazz));
+    }
+
+    /**
+     * 基于SXSSF的流式Sheet写入器
+     * 内存中只保留最近 {@value #ROW_ACCESS_WINDOW} 行, 其余行压缩写入临时文件
+     */
+    public static final class SheetWriter<T> implements AutoCloseable {
+        private final SXSSFWorkbook workbook;
+        private final Sheet sheet;
+        private final List<ExcelColumnInfo> columnInfos;
+        private final CellStyle contentStyle;
+        private int rowNum = 1;
+
+        private SheetWriter(List<ExcelColumnInfo> columnInfos) {
+            this.workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet("Sheet1");
+            this.columnInfos = columnInfos;
+            this.contentStyle = createContentStyle(workbook);
+
+            // 写入表头
+            writeHeader(sheet, workbook, columnInfos);
+
+            // 设置列宽
+            setColumnWidth(sheet, columnInfos);
+        }
+
+        /**
+         * 写入一行数据
+         */
+        public void write(T data) {
+            writeRow(sheet.createRow(rowNum++), data, columnInfos, contentStyle);
+        }
 
-                // 写入数据
-                writeData(sheet, workbook, data, columnInfos);
+        /**
+         * 已写入的数据行数(不含表头)
+         */
+        public int getRowCount() {
+            return rowNum - 1;
+        }
 
-                // 设置列宽
-                setColumnWidth(sheet, columnInfos);
+        /**
+         * 输出到流, 不关闭流
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            workbook.write(out);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
 
-                // 输出
-                workbook.write(response.getOutputStream());
+    /**
+     * 流式读取Excel(.xlsx)第一个Sheet
+     * 基于SAX事件模型逐行解析, 不构建整个工作簿, 内存占用与行数无关;
+     * 第一行为表头, 按 {@link ExcelColumn#value()} 匹配列, 表头中找不到的列按 {@link ExcelColumn#index()} 读取
+     *
+     * @param file    Excel文件
+     * @param clazz   数据类型, 需要有无参构造方法
+     * @param handler 行回调
+     * @param <T>     泛型类型
+     */
+    public static <T> void read(File file, Class<T> clazz, RowHandler<T> handler) {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
             }
-        } catch (Exception e) {
-            log.error("Excel导出失败", e);
-            throw new RuntimeException("Excel导出失败: " + e.getMessage());
+            SheetReader<T> sheetReader = new SheetReader<>(columnPlan(clazz), clazz.getDeclaredConstructor(), handler);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null,
+                        new ReadOnlySharedStringsTable(pkg), sheetReader, new IsoDateFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(clazz.getName() + " 缺少无参构造方法", e);
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IllegalArgumentException("无法解析Excel文件: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 读取Excel的行回调
+     */
+    public interface RowHandler<T> {
+        /**
+         * 读取到一行数据
+         *
+         * @param rowNum 行号(与Excel显示一致, 表头为第1行)
+         * @param data   行数据
+         */
+        void handle(int rowNum, T data);
+
+        /**
+         * 单元格内容无法转换为字段类型时调用, 该行不会交给 {@link #handle}; 默认终止读取
+         *
+         * @param rowNum  行号
+         * @param message 错误信息
+         */
+        default void invalid(int rowNum, String message) {
+            throw new IllegalArgumentException(String.format("第%d行%s", rowNum, message));
+        }
+    }
+
+    /**
+     * SAX 行事件转为数据对象
+     */
+    private static final class SheetReader<T> implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final List<ExcelColumnInfo> columnInfos;
+        private final Constructor<T> constructor;
+        private final RowHandler<T> handler;
+        /** 列号 -> 列信息, 读完表头后确定 */
+        private ExcelColumnInfo[] columns = new ExcelColumnInfo[0];
+        private String[] values = new String[0];
+        private int lastColumn;
+
+        private SheetReader(List<ExcelColumnInfo> columnInfos, Constructor<T> constructor, RowHandler<T> handler) {
+            this.columnInfos = columnInfos;
+            this.constructor = constructor;
+            this.handler = handler;
+            constructor.setAccessible(true);
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            lastColumn = -1;
+            Arrays.fill(values, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : lastColumn + 1;
+            lastColumn = col;
+            if (col >= values.length) {
+                values = Arrays.copyOf(values, col + 1);
+            }
+            values[col] = formattedValue;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0) {
+                mapColumns();
+                return;
+            }
+            T data = null;
+            for (int col = 0; col < columns.length; col++) {
+                String value = values[col];
+                if (columns[col] == null || value == null || value.isBlank()) {
+                    continue;
+                }
+                if (data == null) {
+                    data = newInstance();
+                }
+                try {
+                    columns[col].write(data, columns[col].parse(value.trim()));
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    handler.invalid(rowNum + 1, String.format("[%s]格式错误: %s", columns[col].getTitle(), value));
+                    return;
+                }
+            }
+            // 跳过空行
+            if (data != null) {
+                handler.handle(rowNum + 1, data);
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+
+        /**
+         * 按表头标题确定各列, 表头中没有的列按注解的 index 读取
+         */
+        private void mapColumns() {
+            Map<String, Integer> headers = new HashMap<>();
+            for (int col = 0; col < values.length; col++) {
+                if (values[col] != null) {
+                    headers.putIfAbsent(values[col].trim(), col);
+                }
+            }
+            Map<Integer, ExcelColumnInfo> mapped = new HashMap<>();
+            List<ExcelColumnInfo> unmatched = new ArrayList<>();
+            for (ExcelColumnInfo columnInfo : columnInfos) {
+                Integer col = headers.get(columnInfo.getTitle());
+                if (col != null) {
+                    mapped.put(col, columnInfo);
+                } else {
+                    unmatched.add(columnInfo);
+                }
+            }
+            for (ExcelColumnInfo columnInfo : unmatched) {
+                mapped.putIfAbsent(columnInfo.getIndex(), columnInfo);
+            }
+            int size = mapped.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+            columns = new ExcelColumnInfo[size];
+            mapped.forEach((col, columnInfo) -> columns[col] = columnInfo);
+            values = Arrays.copyOf(values, Math.max(values.length, size));
+        }
+
+        private T newInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("无法创建 " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 日期单元格统一输出为 ISO 格式(列的日期格式解析失败时按 ISO 解析), 其余单元格按显示格式输出
+     */
+    private static final class IsoDateFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+
+    /**
+     * 每个类的列信息只解析一次
+     */
+    private static final ClassValue<List<ExcelColumnInfo>> COLUMN_PLANS = new ClassValue<>() {
+        @Override
+        protected List<ExcelColumnInfo> computeValue(Class<?> type) {
+            return List.copyOf(parseColumnInfo(type));
+        }
+    };
+
+    /**
+     * 获取类的列信息(已缓存)
+     */
+    private static List<ExcelColumnInfo> columnPlan(Class<?> clazz) {
+        return COLUMN_PLANS.get(clazz);
+    }
+
     /**
      * 解析类的Excel列注解信息
+     * 字段读取方法与日期格式化器在这里一次性构建
      */
     private static List<ExcelColumnInfo> parseColumnInfo(Class<?> clazz) {
         List<ExcelColumnInfo> columnInfos = new ArrayList<>();
@@ -108,40 +389,19 @@ public class ExcelUtil {
     }
 
     /**
-     * 写入数据
+     * 写入一行数据
      */
-    private static <T> void writeData(Sheet sheet, Workbook workbook, List<T> dataList,
-                                      List<ExcelColumnInfo> columnInfos) throws Exception {
-        // 创建内容样式
-        CellStyle contentStyle = createContentStyle(workbook);
-
-        // 遍历数据
-        for (int rowNum = 0; rowNum < dataList.size(); rowNum++) {
-            Row row = sheet.createRow(rowNum + 1);
-            T data = dataList.get(rowNum);
-
-            // 写入每一列
-            for (int colNum = 0; colNum < columnInfos.size(); colNum++) {
-                Cell cell = row.createCell(colNum);
-                cell.setCellStyle(contentStyle);
-
-                ExcelColumnInfo columnInfo = columnInfos.get(colNum);
-                Field field = columnInfo.getField();
-                field.setAccessible(true);
-
-                // 获取字段值
-                Object value = field.get(data);
-                if (value != null) {
-                    if (value instanceof LocalDateTime) {
-                        // 日期格式化
-                        String formatted = ((LocalDateTime) value).format(
-                                DateTimeFormatter.ofPattern(columnInfo.getDateFormat())
-                        );
-                        cell.setCellValue(formatted);
-                    } else {
-                        cell.setCellValue(value.toString());
-                    }
-                }
+    private static <T> void writeRow(Row row, T data, List<ExcelColumnInfo> columnInfos,
+                                     CellStyle contentStyle) {
+        // 写入每一列
+        for (int colNum = 0; colNum < columnInfos.size(); colNum++) {
+            Cell cell = row.createCell(colNum);
+            cell.setCellStyle(contentStyle);
+
+            ExcelColumnInfo columnInfo = columnInfos.get(colNum);
+            String text = columnInfo.format(columnInfo.read(data));
+            if (text != null) {
+                cell.setCellValue(text);
             }
         }
     }
@@ -195,15 +455,18 @@ public class ExcelUtil {
     }
 
     /**
-     * 设置响应头
+     * 设置Excel下载响应头
+     *
+     * @param fileName 文件名(不含后缀)
+     * @param response HTTP响应对象
      */
-    private static void setExportResponseHeaders(String fileName, HttpServletResponse response)
+    public static void setExportResponseHeaders(String fileName, HttpServletResponse response)
             throws IOException {
         String encodeFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8);
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setCharacterEncoding("utf-8");
         response.setHeader("Content-disposition",
-                String.format("attachment;filename*=utf-8''{%s}.xlsx", encodeFileName));
+                String.format("attachment;filename*=utf-8''%s.xlsx", encodeFileName));
     }
 
     /**
@@ -215,6 +478,12 @@ public class ExcelUtil {
         private final int index;
         private final int width;
         private final String dateFormat;
+        /** 字段读取方法, 类型为 (Object)Object */
+        private final MethodHandle getter;
+        /** 字段写入方法, 类型为 (Object,Object)void; final 字段为null */
+        private final MethodHandle setter;
+        /** 字段可能为 LocalDateTime 时预先构建的格式化器 */
+        private final DateTimeFormatter formatter;
 
         public ExcelColumnInfo(Field field, String title, int index, int width, String dateFormat) {
             this.field = field;
@@ -222,6 +491,82 @@ public class ExcelUtil {
             this.index = index;
             this.width = width;
             this.dateFormat = dateFormat;
+            try {
+                field.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                this.getter = lookup.unreflectGetter(field)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                this.setter = Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法读取导出字段: " + field, e);
+            }
+            this.formatter = field.getType().isAssignableFrom(LocalDateTime.class)
+                    ? DateTimeFormatter.ofPattern(dateFormat)
+                    : null;
+        }
+
+        /**
+         * 读取字段值
+         */
+        public Object read(Object data) {
+            try {
+                return (Object) getter.invokeExact(data);
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取导出字段失败: " + field.getName(), e);
+            }
+        }
+
+        /**
+         * 写入字段值
+         */
+        public void write(Object data, Object value) {
+            if (setter == null) {
+                throw new IllegalStateException("导入字段不可写: " + field.getName());
+            }
+            try {
+                setter.invokeExact(data, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("写入导入字段失败: " + field.getName(), e);
+            }
+        }
+
+        /**
+         * 单元格文本转为字段值
+         */
+        public Object parse(String text) {
+            Class<?> type = field.getType();
+            if (type == String.class) {
+                return text;
+            }
+            if (type == LocalDateTime.class) {
+                try {
+                    return LocalDateTime.parse(text, formatter);
+                } catch (DateTimeParseException e) {
+                    return LocalDateTime.parse(text);
+                }
+            }
+            if (type == Long.class || type == long.class) {
+                return Long.valueOf(text);
+            }
+            if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(text);
+            }
+            throw new IllegalStateException("不支持导入的字段类型: " + field);
+        }
+
+        /**
+         * 转为单元格文本, 空值返回null
+         */
+        public String format(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (formatter != null && value instanceof LocalDateTime dateTime) {
+                // 日期格式化
+                return formatter.format(dateTime);
+            }
+            return value.toString();
         }
 
         public Field getField() {
@@ -0,0 +1,104 @@
+package com.icss.etc.ticket.util;
+
+import java.util.Arrays;
+
+/**
+ * {@code FileTypeSniffer}
+ * 根据文件头(魔数)识别文件类型, 不信任客户端提交的 Content-Type
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public final class FileTypeSniffer {
+
+    /** 识别所需的文件头字节数 */
+    public static final int HEAD_SIZE = 16;
+
+    public static final String ZIP = "application/zip";
+    public static final String OLE = "application/x-ole-storage";
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    private FileTypeSniffer() {
+    }
+
+    /**
+     * 确定文件的实际类型
+     * ZIP/OLE 容器格式(docx、xlsx、doc、xls等)无法仅凭文件头区分, 声明类型属于同一容器时采用声明类型;
+     * 没有魔数的格式(纯文本等)只接受 text/* 与 application/octet-stream 的声明
+     *
+     * @param head         文件头
+     * @param length       文件头有效长度
+     * @param declaredType 客户端声明的类型
+     * @return 实际类型, 内容与声明不符时返回null
+     */
+    public static String detect(byte[] head, int length, String declaredType) {
+        byte[] bytes = Arrays.copyOf(head, Math.max(length, 0));
+        String declared = declaredType == null ? OCTET_STREAM : declaredType.toLowerCase();
+        String sniffed = sniff(bytes);
+
+        if (ZIP.equals(sniffed)) {
+            return declared.startsWith("application/vnd.openxmlformats-officedocument.")
+                    || declared.equals("application/x-zip-compressed") ? declared : ZIP;
+        }
+        if (OLE.equals(sniffed)) {
+            return declared.equals("application/msword")
+                    || declared.equals("application/vnd.ms-excel")
+                    || declared.equals("application/vnd.ms-powerpoint") ? declared : OLE;
+        }
+        if (sniffed != null) {
+            return sniffed;
+        }
+        if (declared.startsWith("text/")) {
+            // 文本文件不应包含 NUL 字节
+            for (byte b : bytes) {
+                if (b == 0) {
+                    return null;
+                }
+            }
+            return declared;
+        }
+        return declared.equals(OCTET_STREAM) ? OCTET_STREAM : null;
+    }
+
+    private static String sniff(byte[] b) {
+        if (startsWith(b, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(b, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(b, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(b, 'B', 'M')) {
+            return "image/bmp";
+        }
+        if (startsWith(b, 'R', 'I', 'F', 'F') && b.length >= 12
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        if (startsWith(b, '%', 'P', 'D', 'F')) {
+            return "application/pdf";
+        }
+        if (startsWith(b, 'P', 'K', 0x03, 0x04)) {
+            return ZIP;
+        }
+        if (startsWith(b, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            return OLE;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... magic) {
+        if (bytes.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((bytes[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
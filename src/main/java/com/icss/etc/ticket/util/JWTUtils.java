@@ -6,13 +6,61 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class JWTUtils {
     private static final String SECRET_KEY = "your_secret_key";
     private static final long EXPIRE_TIME = 24 * 60 * 60 * 1000;
+    /** 剩余有效期小于该值时重新签发 */
+    private static final long RENEW_WINDOW = 12 * 60 * 60 * 1000;
+    /** 已验签Token缓存的最大条数 */
+    private static final int VERIFIED_CACHE_SIZE = 10000;
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * 已验签Token缓存, key为Token的SHA-256摘要, 条目在Token过期后失效
+     */
+    private static final Map<String, VerifiedToken> verifiedTokens = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                    return size() > VERIFIED_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * 已验签的Token内容
+     * @param subject     用户ID
+     * @param permissions 权限列表
+     * @param userInfo    用户信息
+     * @param expireAt    过期时间戳(毫秒)
+     */
+    public record VerifiedToken(String subject, String[] permissions, UserViewBackDTO userInfo, long expireAt) {
+
+        /**
+         * 返回用户信息副本, 避免调用方修改缓存中的对象
+         */
+        @Override
+        public UserViewBackDTO userInfo() {
+            return copyOf(userInfo);
+        }
+
+        /**
+         * 是否进入续签窗口
+         */
+        public boolean needsRenewal() {
+            return expireAt - System.currentTimeMillis() < RENEW_WINDOW;
+        }
+    }
+
     public static String generateToken(String userId, String[] permissions, UserViewBackDTO u) {
         Date expireDate = new Date(System.currentTimeMillis() + EXPIRE_TIME);
         String userInfoJson = null;
@@ -42,32 +90,79 @@ public class JWTUtils {
         }
     }
 
-    public static String updateToken(String token) {
-        Claims claims = verifyToken(token);
-        if (claims.getExpiration().getTime() - System.currentTimeMillis() < 12 * 60 * 60 * 1000) {
-            String userId = claims.getSubject();
-            String[] permissions = claims.get("permissions", String[].class);
-            String userInfoJson = claims.get("userInfo", String.class);
-            UserViewBackDTO userInfo = null;
-            try {
-                userInfo = objectMapper.readValue(userInfoJson, UserViewBackDTO.class);
-            } catch (Exception e) {
-                throw new RuntimeException("反序列化用户信息失败", e);
+    /**
+     * 验签并解析Token, 同一Token在过期前只验签和反序列化一次
+     * @param token Token
+     * @return 已验签的Token内容
+     */
+    public static VerifiedToken verify(String token) {
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expireAt() > System.currentTimeMillis()) {
+                return cached;
             }
-            return generateToken(userId, permissions, userInfo);
+            verifiedTokens.remove(key);
         }
-        return token;
-    }
 
-    public static UserViewBackDTO getTokenInfo(String token) {
         Claims claims = verifyToken(token);
-        String userInfoJson = claims.get("userInfo", String.class);
-        UserViewBackDTO userInfo = null;
+        UserViewBackDTO userInfo;
         try {
-            userInfo = objectMapper.readValue(userInfoJson, UserViewBackDTO.class);
+            userInfo = objectMapper.readValue(claims.get("userInfo", String.class), UserViewBackDTO.class);
         } catch (Exception e) {
             throw new RuntimeException("反序列化用户信息失败", e);
         }
-        return userInfo;
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                readPermissions(claims),
+                userInfo,
+                claims.getExpiration().getTime());
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * 使用已验签的内容重新签发Token
+     */
+    public static String renew(VerifiedToken verified) {
+        return generateToken(verified.subject(), verified.permissions(), verified.userInfo);
+    }
+
+    public static String updateToken(String token) {
+        VerifiedToken verified = verify(token);
+        return verified.needsRenewal() ? renew(verified) : token;
+    }
+
+    public static UserViewBackDTO getTokenInfo(String token) {
+        return verify(token).userInfo();
+    }
+
+    /**
+     * 签发时为数组, 解析后为List
+     */
+    private static String[] readPermissions(Claims claims) {
+        Object permissions = claims.get("permissions");
+        if (permissions instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).toArray(String[]::new);
+        }
+        if (permissions instanceof String[] array) {
+            return array;
+        }
+        return new String[0];
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static UserViewBackDTO copyOf(UserViewBackDTO u) {
+        return new UserViewBackDTO(u.getUsername(), u.getUserId(), u.getRealName(), u.getPhone(),
+                u.getDepartmentId(), u.getDepartmentName(), u.getRoleId(), u.getRoleName(),
+                u.getPassword(), u.getEmail(), u.getBaseRoleCode(), u.getStatus());
     }
-}
\ No newline at end of file
+}
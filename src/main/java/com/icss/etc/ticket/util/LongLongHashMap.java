@@ -0,0 +1,238 @@
+package com.icss.etc.ticket.util;
+
+import java.util.Arrays;
+
+/**
+ * {@code LongLongHashMap}
+ * long -> long 的开放寻址哈希表(线性探测), 键值均为基本类型, 不产生装箱对象
+ * 非线程安全, 由调用方负责加锁
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+public class LongLongHashMap {
+
+    /** 空槽标记, 键0单独存放 */
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * 条件回调
+     */
+    @FunctionalInterface
+    public interface EntryPredicate {
+        boolean test(long key, long value);
+    }
+
+    /**
+     * 遍历回调
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap() {
+        this(64);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR)));
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    /**
+     * 取值
+     * @param key          键
+     * @param defaultValue 不存在时的返回值
+     */
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean existed = hasZeroKey;
+            hasZeroKey = false;
+            return existed;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                shiftConflictingKeys(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 删除满足条件的条目
+     * @return 删除的条数
+     */
+    public int removeIf(EntryPredicate predicate) {
+        int removed = 0;
+        if (hasZeroKey && predicate.test(EMPTY, zeroValue)) {
+            hasZeroKey = false;
+            removed++;
+        }
+        long[] pending = null;
+        int pendingCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && predicate.test(keys[i], values[i])) {
+                if (pending == null) {
+                    pending = new long[16];
+                } else if (pendingCount == pending.length) {
+                    pending = Arrays.copyOf(pending, pendingCount << 1);
+                }
+                pending[pendingCount++] = keys[i];
+            }
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            if (remove(pending[i])) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    /**
+     * 删除后将同一探测链上的后续键前移, 保证查找不会提前遇到空槽
+     */
+    private void shiftConflictingKeys(int gap) {
+        int distance = 0;
+        while (true) {
+            int slot = (gap + (++distance)) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) {
+                break;
+            }
+            // 该键距其理想槽位的距离不小于到空位的距离时, 可以前移到空位
+            int shift = (slot - slot(key)) & mask;
+            if (shift >= distance) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+                distance = 0;
+            }
+        }
+        keys[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        // murmur3 fmix64
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n - 1, 1)) << 1;
+        return Math.max(capacity, 8);
+    }
+}
@@ -0,0 +1,25 @@
+-- 工单表联合索引
+-- V1 为 ticket.sql 建立的初始结构; 本脚本在已有库上执行一次, 新建库直接使用 ticket.sql 即可。
+-- 函数索引(idx_list_order)需要 MySQL 8.0.13 及以上
+
+use ticket_system;
+
+alter table ticket_system.t_ticket
+    -- 待办列表、处理中工单数、个人统计: processor_id = ? AND is_deleted = 0 AND status IN (...),
+    -- 按 status, create_time 排序; 带上 actual_finish_time 后处理时长统计只读索引
+    add index idx_processor_status (processor_id, is_deleted, status, create_time, actual_finish_time)
+        comment '处理人-状态索引',
+    -- 我的工单、可评价校验: create_by = ? AND is_deleted = 0 AND status ...
+    add index idx_creator_status (create_by, is_deleted, status, create_time)
+        comment '创建人-状态索引',
+    -- 趋势、近期工单: is_deleted = 0 AND create_time 范围, 按日期与状态汇总
+    add index idx_create_time (is_deleted, create_time, status)
+        comment '创建时间索引',
+    -- 工单列表排序: 状态排名, 优先级排名, 创建时间; 表达式须与 TicketMapper.xml 中 statusRank/priorityRank 一致
+    add index idx_list_order (is_deleted,
+                              (case status when 2 then 3 when 3 then 4 else 1 end),
+                              (case priority when 2 then 1 when 1 then 2 else 3 end),
+                              create_time)
+        comment '工单列表排序索引',
+    -- 已被 idx_processor_status 的前缀覆盖
+    drop index idx_processor;
@@ -0,0 +1,15 @@
+-- 工单标题/内容全文索引
+-- 关键字检索按 ngram 分词做短语匹配, 替代扫描 content 的 LIKE '%关键字%'。
+-- 停用词表在建索引时绑定: 默认停用词表会丢弃含 a/in/is/to/on 等的分词, 英文关键字会漏匹配, 因此建索引前关闭。
+-- 分词长度 ngram_token_size 需保持默认值2, 与 TicketMapper.xml 中 keywordMatch 的长度阈值一致。
+-- 建全文索引需要重建表, 数据量大时应在低峰期执行
+
+use ticket_system;
+
+set session innodb_ft_enable_stopword = OFF;
+
+alter table ticket_system.t_ticket
+    add fulltext index ft_title_content (title, content) with parser ngram
+        comment '标题内容全文索引';
+
+set session innodb_ft_enable_stopword = ON;
@@ -0,0 +1,22 @@
+-- 按内容寻址的附件文件表
+-- 已有库中按哈希保存的附件(file_path 为 <hash>.<扩展名>)按未删除的附件记录数补齐引用计数
+
+use ticket_system;
+
+create table if not exists ticket_system.t_attachment_blob
+(
+    file_hash   char(64)                           not null comment '文件内容SHA-256'
+        primary key,
+    file_size   bigint                             not null comment '文件大小(字节)',
+    ref_count   int      default 0                 not null comment '引用该文件的附件数',
+    create_time datetime default CURRENT_TIMESTAMP not null comment '首次上传时间'
+)
+    comment '附件文件表(按内容寻址, 存放于 上传目录/ab/cd/<hash>)' charset = utf8mb4;
+
+insert into ticket_system.t_attachment_blob (file_hash, file_size, ref_count, create_time)
+select left(a.file_path, 64), max(a.file_size), count(1), min(a.create_time)
+from ticket_system.t_attachment a
+where a.is_deleted = 0
+  and a.file_path regexp '^[0-9a-f]{64}([.][A-Za-z0-9]{1,10})?$'
+group by left(a.file_path, 64)
+on duplicate key update ref_count = values(ref_count);
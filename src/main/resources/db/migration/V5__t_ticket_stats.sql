@@ -0,0 +1,19 @@
+-- 工单统计汇总表
+-- 表为空时应用启动后由 TicketStatsRollup 从工单表生成, 之后每晚对账
+
+use ticket_system;
+
+create table if not exists ticket_system.t_ticket_stats
+(
+    department_id bigint           not null comment '处理部门ID',
+    processor_id  bigint default 0 not null comment '处理人ID, 0-未分配',
+    status        tinyint          not null comment '工单状态',
+    stat_date     date             not null comment '工单最后变更日期',
+    ticket_count  int    default 0 not null comment '工单数',
+    primary key (department_id, processor_id, status, stat_date)
+)
+    comment '工单统计汇总表(随工单变更在同一事务内增减, 每晚与工单表对账)' charset = utf8mb4;
+
+create index idx_processor
+    on ticket_system.t_ticket_stats (processor_id, status, stat_date)
+    comment '处理人索引';
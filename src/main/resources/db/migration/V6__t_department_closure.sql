@@ -0,0 +1,17 @@
+-- 部门层级闭包表
+-- 表为空时应用启动后由 DepartmentHierarchy 从部门表生成
+
+use ticket_system;
+
+create table if not exists ticket_system.t_department_closure
+(
+    ancestor_id   bigint  not null comment '上级部门ID(含自身)',
+    descendant_id bigint  not null comment '下级部门ID(含自身)',
+    depth         tinyint not null comment '层级差, 0-自身',
+    primary key (ancestor_id, descendant_id)
+)
+    comment '部门层级闭包表(每个部门与其所有上级部门各一行, 由部门写操作维护)' charset = utf8mb4;
+
+create index idx_descendant
+    on ticket_system.t_department_closure (descendant_id)
+    comment '下级部门索引';
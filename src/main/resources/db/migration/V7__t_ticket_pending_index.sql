@@ -0,0 +1,8 @@
+-- 待分配工单索引
+-- 分配对账按 (is_deleted, status, create_time) 顺序分批锁定待处理工单, 只锁定读到的行
+
+use ticket_system;
+
+alter table ticket_system.t_ticket
+    add index idx_pending (is_deleted, status, create_time)
+        comment '待分配工单索引';
@@ -0,0 +1,212 @@
+package com.icss.etc.ticket.service.impl;
+
+import com.icss.etc.ticket.service.PresenceStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@code RedisPresenceStoreTest}
+ * 在内存中模拟 Redis 有序集合(含流水线), 验证缓冲与 ZADD GT / ZMSCORE / ZCOUNT 的合并结果
+ *
+ * @author SevenThRe
+ * @version 1.0
+ * @since 1.0
+ */
+class RedisPresenceStoreTest {
+
+    private static final String KEY = "ticket:presence";
+
+    private FakeRedis redis;
+    private RedisPresenceStore store;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        store = new RedisPresenceStore(new StringRedisTemplate(redis.connectionFactory()), KEY);
+    }
+
+    @Test
+    void countMergesPendingHeartbeatsAndLogouts() {
+        redis.scores.put("1", 1000d);
+        redis.scores.put("2", 2000d);
+
+        store.touch(1, 5000);
+        store.remove(2);
+        store.touch(3, 3000);
+
+        // 1: 缓冲刷新到 5000; 2: 缓冲登出; 3: 只在缓冲中
+        assertEquals(2, store.count(1500));
+        assertEquals(1, store.count(4000));
+
+        store.flush();
+        assertEquals(Map.of("1", 5000d, "3", 3000d), redis.scores);
+        assertEquals(2, store.count(1500));
+    }
+
+    @Test
+    void countWithEmptyBufferUsesRedisOnly() {
+        redis.scores.put("1", 1000d);
+        redis.scores.put("2", 2000d);
+
+        assertEquals(1, store.count(1000));
+        assertEquals(2, store.count(999));
+    }
+
+    @Test
+    void flushDoesNotMoveScoreBackwards() {
+        // 其他节点已写入更晚的时间
+        redis.scores.put("1", 9000d);
+
+        store.touch(1, 5000);
+        assertArrayEquals(new long[]{9000}, store.lastSeen(new long[]{1}));
+        assertEquals(1, store.count(8000));
+
+        store.flush();
+        assertEquals(9000d, redis.scores.get("1"));
+    }
+
+    @Test
+    void lastSeenMergesPendingBuffer() {
+        redis.scores.put("1", 1000d);
+        redis.scores.put("2", 2000d);
+
+        store.touch(1, 4000);
+        store.remove(2);
+
+        assertArrayEquals(new long[]{4000, PresenceStore.NOT_ONLINE, PresenceStore.NOT_ONLINE},
+                store.lastSeen(new long[]{1, 2, 3}));
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        store.touch(1, 1000);
+        redis.failNext = true;
+        store.flush();
+        assertTrue(redis.scores.isEmpty());
+        assertEquals(1, store.count(0));
+
+        store.flush();
+        assertEquals(Map.of("1", 1000d), redis.scores);
+    }
+
+    @Test
+    void countFallsBackToBufferWhenRedisIsDown() {
+        redis.scores.put("1", 1000d);
+        store.touch(2, 3000);
+        store.touch(3, 500);
+        store.remove(4);
+        redis.down = true;
+
+        assertEquals(1, store.count(1000));
+        assertArrayEquals(new long[]{PresenceStore.NOT_ONLINE, 3000}, store.lastSeen(new long[]{1, 2}));
+    }
+
+    /**
+     * 单个有序集合的内存实现; 流水线中的命令立即执行, 结果在 closePipeline 时返回
+     */
+    private static class FakeRedis {
+
+        final Map<String, Double> scores = new HashMap<>();
+        boolean failNext;
+        boolean down;
+        private List<Object> pipeline;
+
+        RedisConnectionFactory connectionFactory() {
+            // 有序集合命令可能经由 zSetCommands() 或连接自身的默认方法调用, 都由 zSet 处理
+            RedisConnection connection = Mockito.mock(RedisConnection.class, invocation -> {
+                String name = invocation.getMethod().getName();
+                return switch (name) {
+                    case "zSetCommands" -> invocation.getMock();
+                    case "openPipeline" -> {
+                        pipeline = new ArrayList<>();
+                        yield null;
+                    }
+                    case "closePipeline" -> {
+                        List<Object> results = pipeline;
+                        pipeline = null;
+                        yield results;
+                    }
+                    case "isPipelined" -> pipeline != null;
+                    default -> name.startsWith("z") ? zSet(invocation) : Mockito.RETURNS_DEFAULTS.answer(invocation);
+                };
+            });
+            RedisConnectionFactory factory = Mockito.mock(RedisConnectionFactory.class);
+            Mockito.when(factory.getConnection()).thenReturn(connection);
+            return factory;
+        }
+
+        private Object zSet(InvocationOnMock invocation) {
+            if (down) {
+                throw new IllegalStateException("connection refused");
+            }
+            Object[] args = invocation.getRawArguments();
+            assertEquals(KEY, string((byte[]) args[0]));
+            Object result = switch (invocation.getMethod().getName()) {
+                case "zAdd" -> zAddGt(invocation);
+                case "zRem" -> {
+                    long removed = 0;
+                    for (byte[] member : (byte[][]) args[1]) {
+                        removed += scores.remove(string(member)) != null ? 1 : 0;
+                    }
+                    yield removed;
+                }
+                case "zMScore" -> {
+                    List<Double> found = new ArrayList<>();
+                    for (byte[] member : (byte[][]) args[1]) {
+                        found.add(scores.get(string(member)));
+                    }
+                    yield found;
+                }
+                case "zCount" -> {
+                    double min = (double) args[1];
+                    double max = (double) args[2];
+                    yield scores.values().stream().filter(score -> score >= min && score <= max).count();
+                }
+                default -> throw new UnsupportedOperationException(invocation.getMethod().toString());
+            };
+            if (pipeline != null) {
+                pipeline.add(result);
+                return null;
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Long zAddGt(InvocationOnMock invocation) {
+            Object[] args = invocation.getRawArguments();
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("connection reset");
+            }
+            RedisZSetCommands.ZAddArgs zAddArgs = (RedisZSetCommands.ZAddArgs) args[2];
+            assertTrue(zAddArgs.contains(RedisZSetCommands.ZAddArgs.Flag.GT));
+            long added = 0;
+            for (Tuple tuple : (Set<Tuple>) args[1]) {
+                Double previous = scores.get(string(tuple.getValue()));
+                if (previous == null) {
+                    added++;
+                }
+                if (previous == null || tuple.getScore() > previous) {
+                    scores.put(string(tuple.getValue()), tuple.getScore());
+                }
+            }
+            return added;
+        }
+
+        private static String string(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -21,6 +21,16 @@ create index idx_ticket
     on ticket_system.t_attachment (ticket_id)
     comment '工单索引';
 
+create table if not exists ticket_system.t_attachment_blob
+(
+    file_hash   char(64)                           not null comment '文件内容SHA-256'
+        primary key,
+    file_size   bigint                             not null comment '文件大小(字节)',
+    ref_count   int      default 0                 not null comment '引用该文件的附件数',
+    create_time datetime default CURRENT_TIMESTAMP not null comment '首次上传时间'
+)
+    comment '附件文件表(按内容寻址, 存放于 上传目录/ab/cd/<hash>)' charset = utf8mb4;
+
 create table if not exists ticket_system.t_department
 (
     department_id   bigint auto_increment comment '部门ID'
@@ -53,6 +63,19 @@ create index idx_parent
     on ticket_system.t_department (parent_id)
     comment '父部门索引';
 
+create table if not exists ticket_system.t_department_closure
+(
+    ancestor_id   bigint  not null comment '上级部门ID(含自身)',
+    descendant_id bigint  not null comment '下级部门ID(含自身)',
+    depth         tinyint not null comment '层级差, 0-自身',
+    primary key (ancestor_id, descendant_id)
+)
+    comment '部门层级闭包表(每个部门与其所有上级部门各一行, 由部门写操作维护)' charset = utf8mb4;
+
+create index idx_descendant
+    on ticket_system.t_department_closure (descendant_id)
+    comment '下级部门索引';
+
 create table if not exists ticket_system.t_notification
 (
     notification_id bigint auto_increment comment '通知ID'
@@ -145,9 +168,37 @@ create index idx_department
     on ticket_system.t_ticket (department_id)
     comment '部门索引';
 
-create index idx_processor
-    on ticket_system.t_ticket (processor_id)
-    comment '处理人索引';
+create index idx_processor_status
+    on ticket_system.t_ticket (processor_id, is_deleted, status, create_time, actual_finish_time)
+    comment '处理人-状态索引';
+
+create index idx_creator_status
+    on ticket_system.t_ticket (create_by, is_deleted, status, create_time)
+    comment '创建人-状态索引';
+
+create index idx_create_time
+    on ticket_system.t_ticket (is_deleted, create_time, status)
+    comment '创建时间索引';
+
+create index idx_pending
+    on ticket_system.t_ticket (is_deleted, status, create_time)
+    comment '待分配工单索引';
+
+create index idx_list_order
+    on ticket_system.t_ticket (is_deleted,
+                               (case status when 2 then 3 when 3 then 4 else 1 end),
+                               (case priority when 2 then 1 when 1 then 2 else 3 end),
+                               create_time)
+    comment '工单列表排序索引';
+
+-- 全文索引不使用停用词, 否则英文关键字会漏匹配; 要求 ngram_token_size 为默认值2
+set session innodb_ft_enable_stopword = OFF;
+
+create fulltext index ft_title_content
+    on ticket_system.t_ticket (title, content) with parser ngram
+    comment '标题内容全文索引';
+
+set session innodb_ft_enable_stopword = ON;
 
 create index idx_type
     on ticket_system.t_ticket (type_id)
@@ -176,6 +227,21 @@ create index idx_ticket
     on ticket_system.t_ticket_record (ticket_id)
     comment '工单索引';
 
+create table if not exists ticket_system.t_ticket_stats
+(
+    department_id bigint           not null comment '处理部门ID',
+    processor_id  bigint default 0 not null comment '处理人ID, 0-未分配',
+    status        tinyint          not null comment '工单状态',
+    stat_date     date             not null comment '工单最后变更日期',
+    ticket_count  int    default 0 not null comment '工单数',
+    primary key (department_id, processor_id, status, stat_date)
+)
+    comment '工单统计汇总表(随工单变更在同一事务内增减, 每晚与工单表对账)' charset = utf8mb4;
+
+create index idx_processor
+    on ticket_system.t_ticket_stats (processor_id, status, stat_date)
+    comment '处理人索引';
+
 create table if not exists ticket_system.t_ticket_type
 (
     type_id     bigint auto_increment comment '类型ID'